@@ -1,44 +1,263 @@
 package com.raphael.WeatherAPI.configuration;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
 import com.raphael.WeatherAPI.model.Location;
-import com.raphael.WeatherAPI.repository.WeatherRepository;
+import com.raphael.WeatherAPI.model.SeedMetadata;
+import com.raphael.WeatherAPI.service.LocationIndex;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationStartedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.FindAndReplaceOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
 import org.springframework.stereotype.Component;
-import jakarta.annotation.PostConstruct;
 
-import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.InputStreamReader;
-import java.util.Arrays;
+import java.io.OutputStream;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
 
 @Component
 public class DataInitializer {
 
-    private final WeatherRepository weatherRepository;
-
+    private static final String SEED_NAME = "locations";
     private static final Logger logger = LoggerFactory.getLogger(DataInitializer.class);
 
-    public DataInitializer(WeatherRepository weatherRepository) {
-        this.weatherRepository = weatherRepository;
+    private final MongoTemplate mongoTemplate;
+    private final LocationFileReader locationFileReader;
+    private final LocationIndex locationIndex;
+    private final String locationsFile;
+    private final int batchSize;
+    private final int progressInterval;
+    private final Duration loadBackoff;
+    private final Duration maxLoadBackoff;
+    private final SimpleAsyncTaskExecutor seedingExecutor = new SimpleAsyncTaskExecutor("location-seeding-");
+
+    public DataInitializer(MongoTemplate mongoTemplate, LocationFileReader locationFileReader, LocationIndex locationIndex,
+                           @Value("${locations.seed.file:/data/locations.json}") String locationsFile,
+                           @Value("${locations.seed.batch-size:1000}") int batchSize,
+                           @Value("${locations.seed.progress-interval:50000}") int progressInterval,
+                           @Value("${locations.seed.load-backoff:1s}") Duration loadBackoff,
+                           @Value("${locations.seed.max-load-backoff:1m}") Duration maxLoadBackoff) {
+        this.mongoTemplate = mongoTemplate;
+        this.locationFileReader = locationFileReader;
+        this.locationIndex = locationIndex;
+        this.locationsFile = locationsFile;
+        this.batchSize = batchSize;
+        this.progressInterval = progressInterval;
+        this.loadBackoff = loadBackoff;
+        this.maxLoadBackoff = maxLoadBackoff;
+        // a retrying seeder must not keep the JVM alive on shutdown
+        this.seedingExecutor.setDaemon(true);
     }
 
-    @PostConstruct
-    public void initializeData() {
+    /**
+     * Seeds the locations on a background thread once the context has started, so the web server
+     * does not wait for the seed file. Requests are answered with 503 until the index is ready.
+     */
+    @EventListener(ApplicationStartedEvent.class)
+    public void initializeDataInBackground() {
+        seedingExecutor.execute(this::initializeDataUntilLoaded);
+    }
+
+    /**
+     * Runs {@link #initializeData()} until the index has been loaded and the seed file applied, waiting twice as long
+     * after every failed attempt up to the maximum backoff, so the service recovers once Mongo becomes reachable.
+     */
+    public void initializeDataUntilLoaded() {
+        Duration backoff = loadBackoff;
+        while (!initializeData()) {
+            if (locationIndex.isLoaded()) {
+                logger.warn("Location data could not be seeded, retrying in {}", backoff);
+            } else {
+                logger.warn("Location index could not be loaded, retrying in {}", backoff);
+            }
+            try {
+                Thread.sleep(backoff.toMillis());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            Duration doubled = backoff.multipliedBy(2);
+            backoff = doubled.compareTo(maxLoadBackoff) < 0 ? doubled : maxLoadBackoff;
+        }
+    }
+
+    /**
+     * Builds the location index, seeds the collection when the seed file changed and marks the index ready.
+     * A collection seeded by an earlier run is served right away, while the seed file is diffed against it.
+     *
+     * @return true if the index was loaded and the collection matches the seed file
+     */
+    public boolean initializeData() {
         try {
-            // Load the JSON file
-            InputStream inputStream = getClass().getResourceAsStream("/data/locations.json");
-            BufferedReader reader = new BufferedReader(new InputStreamReader(inputStream));
-
-            // Parse the JSON and populate the repository
-            ObjectMapper objectMapper = new ObjectMapper();
-            Location[] locationData = objectMapper.readValue(reader, Location[].class);
-            weatherRepository.saveAll(Arrays.asList(locationData));
-            logger.info("Successfully loaded locations JSON into repository");
-        } catch (IOException e) {
+            // the index doubles as the snapshot of the collection the seed file is diffed against
+            locationIndex.refresh();
+            if (locationIndex.size() > 0) {
+                locationIndex.markReady();
+            }
+            seedIfChanged();
+            return true;
+        } catch (IOException | RuntimeException e) {
             logger.error("Error occurred while retrieving the location data file in DataInitializer class: {}", e.getMessage());
+            return false;
+        } finally {
+            // a failed seed still leaves the previously seeded collection usable
+            if (locationIndex.isLoaded()) {
+                locationIndex.markReady();
+            }
+        }
+    }
+
+    private void seedIfChanged() throws IOException {
+        String checksum = checksum();
+        if (checksum == null) {
+            logger.warn("Location data file {} not found, skipping seeding", locationsFile);
+            return;
+        }
+
+        SeedMetadata seeded = mongoTemplate.findById(SEED_NAME, SeedMetadata.class);
+        if (seeded != null && checksum.equals(seeded.checksum())) {
+            logger.info("Location data file unchanged since {} ({} locations), skipping seeding", seeded.seededAt(), seeded.count());
+            return;
+        }
+
+        long count;
+        locationIndex.setSeeding(true);
+        try {
+            count = seed();
+        } finally {
+            locationIndex.setSeeding(false);
+        }
+        mongoTemplate.save(new SeedMetadata(SEED_NAME, checksum, count, Instant.now()));
+    }
+
+    /**
+     * Computes the SHA-256 of the seed file.
+     *
+     * @return the hex encoded checksum, or null if the seed file does not exist
+     * @throws IOException if the seed file cannot be read
+     */
+    private String checksum() throws IOException {
+        try (InputStream inputStream = getClass().getResourceAsStream(locationsFile)) {
+            if (inputStream == null) {
+                return null;
+            }
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            try (DigestInputStream digestInputStream = new DigestInputStream(inputStream, digest)) {
+                digestInputStream.transferTo(OutputStream.nullOutputStream());
+            }
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
         }
     }
+
+    /**
+     * Streams the seed file and writes only the locations that differ from the indexed collection,
+     * then removes the locations that are no longer in the file and rebuilds the index once. The index is rebuilt
+     * even when seeding fails part way, so it reflects the writes that were applied.
+     *
+     * @return the number of locations in the seed file
+     * @throws IOException if the seed file cannot be parsed
+     */
+    private long seed() throws IOException {
+        long start = System.nanoTime();
+        Set<String> seen = new HashSet<>(Math.max(16, locationIndex.size() * 4 / 3 + 1));
+        long[] progress = {0, 0};
+        // set before each write, a write that failed may still have been applied in part
+        boolean[] written = {false};
+
+        long read;
+        try {
+            try (InputStream inputStream = getClass().getResourceAsStream(locationsFile)) {
+                read = locationFileReader.read(inputStream, batchSize, batch -> {
+                    List<Location> changed = new ArrayList<>();
+                    for (Location location : batch) {
+                        if (location.name() != null && seen.add(location.name()) && isChanged(location)) {
+                            changed.add(location);
+                        }
+                    }
+                    written[0] |= !changed.isEmpty();
+                    upsert(changed);
+
+                    long before = progress[0];
+                    progress[0] += batch.size();
+                    progress[1] += changed.size();
+                    if (progress[0] / progressInterval > before / progressInterval) {
+                        logger.info("Checked {} locations, {} upserted ({} locations/s)", progress[0], progress[1], throughput(progress[0], start));
+                    }
+                });
+            }
+
+            List<String> removed = new ArrayList<>();
+            for (String name : locationIndex.names()) {
+                if (!seen.contains(name)) {
+                    removed.add(name);
+                }
+            }
+            for (int from = 0; from < removed.size(); from += batchSize) {
+                written[0] = true;
+                mongoTemplate.remove(Query.query(Criteria.where("_id").in(removed.subList(from, Math.min(removed.size(), from + batchSize)))),
+                        Location.class);
+            }
+
+            logger.info("Successfully seeded {} locations in {} ms: {} upserted, {} removed ({} locations/s)",
+                    read, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start), progress[1], removed.size(), throughput(read, start));
+        } catch (IOException | RuntimeException e) {
+            if (written[0]) {
+                try {
+                    locationIndex.refresh();
+                } catch (RuntimeException refreshFailure) {
+                    e.addSuppressed(refreshFailure);
+                }
+            }
+            throw e;
+        }
+
+        if (written[0]) {
+            locationIndex.refresh();
+        }
+        return read;
+    }
+
+    private boolean isChanged(Location location) {
+        Optional<Location.Coordinates> indexed = locationIndex.find(location.name());
+        return indexed.isEmpty() || !indexed.get().equals(location.coordinates())
+                || !Objects.equals(locationIndex.findCityId(location.name()).orElse(null), location.cityId());
+    }
+
+    private void upsert(List<Location> locations) {
+        if (locations.isEmpty()) {
+            return;
+        }
+        // unordered lets the server apply the upserts in parallel and continue past a single failing document
+        BulkOperations bulkOperations = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Location.class);
+        for (Location location : locations) {
+            bulkOperations.replaceOne(Query.query(Criteria.where("_id").is(location.name())), location,
+                    FindAndReplaceOptions.options().upsert());
+        }
+        bulkOperations.execute();
+    }
+
+    private static long throughput(long count, long startNanos) {
+        long elapsedNanos = Math.max(1, System.nanoTime() - startNanos);
+        return count * TimeUnit.SECONDS.toNanos(1) / elapsedNanos;
+    }
 }
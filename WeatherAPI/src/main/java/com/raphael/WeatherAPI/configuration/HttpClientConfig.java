@@ -0,0 +1,58 @@
+package com.raphael.WeatherAPI.configuration;
+
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
+import org.apache.hc.core5.http.io.SocketConfig;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+/**
+ * Pooled, keep-alive Apache HttpClient used by the RestTemplate, replacing the default
+ * SimpleClientHttpRequestFactory that opened a new connection (and TLS handshake) per upstream call.
+ */
+@Configuration
+public class HttpClientConfig {
+
+    @Bean
+    public MeteredConnectionManager upstreamConnectionManager(@Value("${http.client.max-connections:200}") int maxConnections,
+                                                              @Value("${http.client.max-connections-per-route:50}") int maxConnectionsPerRoute,
+                                                              @Value("${http.client.read-timeout:10s}") Duration readTimeout,
+                                                              @Value("${http.client.validate-after-inactivity:2s}") Duration validateAfterInactivity) {
+        return new MeteredConnectionManager(PoolingHttpClientConnectionManagerBuilder.create()
+                .setMaxConnTotal(maxConnections)
+                .setMaxConnPerRoute(maxConnectionsPerRoute)
+                .setDefaultSocketConfig(SocketConfig.custom()
+                        .setSoTimeout(Timeout.ofMilliseconds(readTimeout.toMillis()))
+                        .setSoKeepAlive(true)
+                        .build())
+                .setValidateAfterInactivity(TimeValue.ofMilliseconds(validateAfterInactivity.toMillis()))
+                .build());
+    }
+
+    @Bean(destroyMethod = "close")
+    public CloseableHttpClient upstreamHttpClient(MeteredConnectionManager upstreamConnectionManager,
+                                                  @Value("${http.client.connect-timeout:2s}") Duration connectTimeout,
+                                                  @Value("${http.client.connection-request-timeout:1s}") Duration connectionRequestTimeout,
+                                                  @Value("${http.client.read-timeout:10s}") Duration readTimeout,
+                                                  @Value("${http.client.idle-eviction:30s}") Duration idleEviction) {
+        RequestConfig requestConfig = RequestConfig.custom()
+                .setConnectTimeout(Timeout.ofMilliseconds(connectTimeout.toMillis()))
+                .setConnectionRequestTimeout(Timeout.ofMilliseconds(connectionRequestTimeout.toMillis()))
+                .setResponseTimeout(Timeout.ofMilliseconds(readTimeout.toMillis()))
+                .build();
+
+        return HttpClients.custom()
+                .setConnectionManager(upstreamConnectionManager)
+                .setDefaultRequestConfig(requestConfig)
+                .evictExpiredConnections()
+                .evictIdleConnections(TimeValue.ofMilliseconds(idleEviction.toMillis()))
+                .build();
+    }
+}
@@ -0,0 +1,60 @@
+package com.raphael.WeatherAPI.configuration;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.raphael.WeatherAPI.model.Location;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Streams the locations seed file, binding one array element at a time so only a single batch
+ * of locations is held in memory regardless of the file size.
+ */
+@Component
+public class LocationFileReader {
+
+    private final ObjectMapper objectMapper;
+
+    public LocationFileReader(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+    }
+
+
+    /**
+     * Reads the JSON array of locations and hands them to the consumer in batches.
+     *
+     * @param inputStream   the seed file contents
+     * @param batchSize     the maximum number of locations per batch
+     * @param batchConsumer receives each batch, the list must not be retained after the call
+     * @return the total number of locations read
+     * @throws IOException if the stream cannot be read or is not a JSON array
+     */
+    public long read(InputStream inputStream, int batchSize, Consumer<List<Location>> batchConsumer) throws IOException {
+        try (JsonParser parser = objectMapper.getFactory().createParser(inputStream)) {
+            if (parser.nextToken() != JsonToken.START_ARRAY) {
+                throw new IOException("Expected the locations file to contain a JSON array");
+            }
+
+            List<Location> batch = new ArrayList<>(batchSize);
+            long count = 0;
+            while (parser.nextToken() == JsonToken.START_OBJECT) {
+                batch.add(objectMapper.readValue(parser, Location.class));
+                count++;
+                if (batch.size() == batchSize) {
+                    batchConsumer.accept(batch);
+                    batch.clear();
+                }
+            }
+            if (!batch.isEmpty()) {
+                batchConsumer.accept(batch);
+            }
+            return count;
+        }
+    }
+}
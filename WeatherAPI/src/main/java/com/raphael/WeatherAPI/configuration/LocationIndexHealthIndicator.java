@@ -0,0 +1,25 @@
+package com.raphael.WeatherAPI.configuration;
+
+import com.raphael.WeatherAPI.service.LocationIndex;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.stereotype.Component;
+
+/**
+ * Reports OUT_OF_SERVICE until the locations have been seeded, so the readiness probe keeps traffic away meanwhile.
+ */
+@Component
+public class LocationIndexHealthIndicator implements HealthIndicator {
+
+    private final LocationIndex locationIndex;
+
+    public LocationIndexHealthIndicator(LocationIndex locationIndex) {
+        this.locationIndex = locationIndex;
+    }
+
+    @Override
+    public Health health() {
+        Health.Builder builder = locationIndex.isReady() ? Health.up() : Health.outOfService();
+        return builder.withDetail("locations", locationIndex.size()).build();
+    }
+}
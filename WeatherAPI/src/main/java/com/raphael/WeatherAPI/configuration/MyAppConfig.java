@@ -1,15 +1,50 @@
 package com.raphael.WeatherAPI.configuration;
 
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.boot.web.client.RestTemplateBuilder;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
 import org.springframework.web.client.RestTemplate;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.time.Duration;
 
 @Configuration
 public class MyAppConfig {
 
     @Bean
-    public RestTemplate restTemplate(RestTemplateBuilder builder) {
-        return builder.build();
+    public RestTemplate restTemplate(RestTemplateBuilder builder, CloseableHttpClient upstreamHttpClient) {
+        return builder.requestFactory(() -> new HttpComponentsClientHttpRequestFactory(upstreamHttpClient)).build();
+    }
+
+    /**
+     * WebClient used by the reactive upstream mode. Requests beyond maxConnections wait in the pending queue
+     * instead of holding a thread, so slow upstream calls only cost memory for the queued request.
+     */
+    @Bean
+    @ConditionalOnProperty(name = "openweathermap.client.mode", havingValue = "reactive")
+    public WebClient weatherWebClient(WebClient.Builder builder,
+                                      @Value("${openweathermap.reactive.max-connections:500}") int maxConnections,
+                                      @Value("${openweathermap.reactive.pending-acquire-max-count:10000}") int pendingAcquireMaxCount,
+                                      @Value("${openweathermap.reactive.pending-acquire-timeout:10s}") Duration pendingAcquireTimeout,
+                                      @Value("${openweathermap.reactive.max-idle-time:30s}") Duration maxIdleTime,
+                                      @Value("${openweathermap.reactive.response-timeout:10s}") Duration responseTimeout) {
+        ConnectionProvider connectionProvider = ConnectionProvider.builder("openweathermap")
+                .maxConnections(maxConnections)
+                .pendingAcquireMaxCount(pendingAcquireMaxCount)
+                .pendingAcquireTimeout(pendingAcquireTimeout)
+                .maxIdleTime(maxIdleTime)
+                .metrics(true)
+                .build();
+        HttpClient httpClient = HttpClient.create(connectionProvider)
+                .responseTimeout(responseTimeout);
+
+        return builder.clientConnector(new ReactorClientHttpConnector(httpClient)).build();
     }
 }
@@ -0,0 +1,153 @@
+package com.raphael.WeatherAPI.configuration;
+
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.WriteListener;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpServletResponseWrapper;
+import org.springframework.web.servlet.View;
+
+import java.io.ByteArrayOutputStream;
+import java.io.CharArrayWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.UncheckedIOException;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+/**
+ * Serves a view from the rendered view cache when the model carries a render key, the version of the data shown.
+ * A repeat view of unchanged data is a byte array write, the template is only evaluated on a miss.
+ * Views without a render key are rendered as usual.
+ */
+public class RenderCachingView implements View {
+
+    /**
+     * Model attribute holding the version of the data the view renders, typically its ETag.
+     */
+    public static final String RENDER_KEY = "renderKey";
+
+    private final String viewName;
+    private final View delegate;
+    private final RenderedViewCache renderedViewCache;
+
+    public RenderCachingView(String viewName, View delegate, RenderedViewCache renderedViewCache) {
+        this.viewName = viewName;
+        this.delegate = delegate;
+        this.renderedViewCache = renderedViewCache;
+    }
+
+
+    @Override
+    public String getContentType() {
+        return delegate.getContentType();
+    }
+
+    @Override
+    public void render(Map<String, ?> model, HttpServletRequest request, HttpServletResponse response) throws Exception {
+        Object renderKey = model != null ? model.get(RENDER_KEY) : null;
+        if (renderKey == null) {
+            delegate.render(model, request, response);
+            return;
+        }
+
+        RenderedViewCache.RenderedView rendered = renderedViewCache.get(viewName + "|" + renderKey, key -> {
+            CapturingResponse capturing = new CapturingResponse(response);
+            try {
+                delegate.render(model, request, capturing);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            } catch (Exception e) {
+                throw new IllegalStateException("Failed to render view " + viewName, e);
+            }
+            return capturing.toRenderedView();
+        });
+
+        if (rendered.contentType() != null) {
+            response.setContentType(rendered.contentType());
+        }
+        response.setContentLength(rendered.body().length);
+        response.getOutputStream().write(rendered.body());
+    }
+
+    /**
+     * Collects the page written by the delegate view instead of sending it, headers still reach the real response.
+     * Like a servlet response, the page is written either as characters or as bytes, not both.
+     */
+    private static final class CapturingResponse extends HttpServletResponseWrapper {
+
+        private final CharArrayWriter buffer = new CharArrayWriter(4096);
+        private final PrintWriter writer = new PrintWriter(buffer);
+        private final ByteArrayOutputStream bytes = new ByteArrayOutputStream(4096);
+        private final ServletOutputStream outputStream = new CapturingOutputStream(bytes);
+        private boolean writerUsed;
+        private boolean outputStreamUsed;
+
+        private CapturingResponse(HttpServletResponse response) {
+            super(response);
+        }
+
+        @Override
+        public PrintWriter getWriter() {
+            if (outputStreamUsed) {
+                throw new IllegalStateException("getOutputStream() has already been called for this response");
+            }
+            writerUsed = true;
+            return writer;
+        }
+
+        @Override
+        public ServletOutputStream getOutputStream() {
+            if (writerUsed) {
+                throw new IllegalStateException("getWriter() has already been called for this response");
+            }
+            outputStreamUsed = true;
+            return outputStream;
+        }
+
+        @Override
+        public void flushBuffer() {
+            writer.flush();
+        }
+
+        private RenderedViewCache.RenderedView toRenderedView() {
+            if (outputStreamUsed) {
+                return new RenderedViewCache.RenderedView(getContentType(), bytes.toByteArray());
+            }
+            writer.flush();
+            String encoding = getCharacterEncoding();
+            Charset charset = encoding != null ? Charset.forName(encoding) : StandardCharsets.UTF_8;
+            return new RenderedViewCache.RenderedView(getContentType(), buffer.toString().getBytes(charset));
+        }
+    }
+
+    private static final class CapturingOutputStream extends ServletOutputStream {
+
+        private final ByteArrayOutputStream bytes;
+
+        private CapturingOutputStream(ByteArrayOutputStream bytes) {
+            this.bytes = bytes;
+        }
+
+        @Override
+        public void write(int b) {
+            bytes.write(b);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            bytes.write(b, off, len);
+        }
+
+        @Override
+        public boolean isReady() {
+            return true;
+        }
+
+        @Override
+        public void setWriteListener(WriteListener writeListener) {
+            throw new UnsupportedOperationException("The rendered page is captured in memory");
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package com.raphael.WeatherAPI.configuration;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+import java.util.function.Function;
+
+/**
+ * Rendered HTML of weather pages, keyed by view name and the version of the data the page was rendered from.
+ * Bounded by the total size of the cached pages rather than their number.
+ */
+@Component
+public class RenderedViewCache implements MeterBinder {
+
+    private final boolean enabled;
+    private final Cache<String, RenderedView> cache;
+
+    public RenderedViewCache(@Value("${weather.view-cache.enabled:true}") boolean enabled,
+                             @Value("${weather.view-cache.max-size:16MB}") DataSize maxSize,
+                             @Value("${weather.view-cache.expire-after-access:30m}") Duration expireAfterAccess) {
+        this.enabled = enabled;
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(maxSize.toBytes())
+                .weigher((String key, RenderedView view) -> key.length() + view.body().length)
+                .expireAfterAccess(expireAfterAccess)
+                .recordStats()
+                .build();
+    }
+
+
+    /**
+     * Returns the cached page, rendering it on a miss.
+     *
+     * @param key      the view name and data version
+     * @param renderer renders the page when it is not cached
+     * @return the rendered page
+     */
+    public RenderedView get(String key, Function<String, RenderedView> renderer) {
+        return enabled ? cache.get(key, renderer) : renderer.apply(key);
+    }
+
+    /**
+     * Publishes the hit, miss and eviction counters of the rendered view cache.
+     *
+     * @param registry the registry to bind the cache metrics to
+     */
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        CaffeineCacheMetrics.monitor(registry, cache, "renderedViews");
+    }
+
+    /**
+     * @param contentType the content type the view set while rendering
+     * @param body        the encoded page
+     */
+    public record RenderedView(String contentType, byte[] body) {}
+}
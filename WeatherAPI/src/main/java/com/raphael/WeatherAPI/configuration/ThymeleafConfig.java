@@ -3,8 +3,14 @@ package com.raphael.WeatherAPI.configuration;
 import com.raphael.WeatherAPI.controller.WeatherIconUtil;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.web.servlet.View;
 import org.thymeleaf.spring6.SpringTemplateEngine;
 import org.thymeleaf.spring6.templateresolver.SpringResourceTemplateResolver;
+import org.thymeleaf.spring6.view.AbstractThymeleafView;
+import org.thymeleaf.spring6.view.ThymeleafViewResolver;
+
+import java.util.Locale;
 
 @Configuration
 public class ThymeleafConfig {
@@ -14,6 +20,9 @@ public class ThymeleafConfig {
         SpringResourceTemplateResolver templateResolver = new SpringResourceTemplateResolver();
         templateResolver.setPrefix("classpath:/templates/");
         templateResolver.setSuffix(".html");
+        templateResolver.setCharacterEncoding("UTF-8");
+        // parsed templates are kept in memory instead of being read and parsed on every render
+        templateResolver.setCacheable(true);
         return templateResolver;
     }
 
@@ -24,9 +33,27 @@ public class ThymeleafConfig {
         return templateEngine;
     }
 
+    /**
+     * Replaces the auto-configured Thymeleaf view resolver so rendered pages can be served from the rendered view cache.
+     */
+    @Bean
+    public ThymeleafViewResolver thymeleafViewResolver(SpringTemplateEngine templateEngine, RenderedViewCache renderedViewCache) {
+        ThymeleafViewResolver viewResolver = new ThymeleafViewResolver() {
+            @Override
+            protected View createView(String viewName, Locale locale) throws Exception {
+                View view = super.createView(viewName, locale);
+                return view instanceof AbstractThymeleafView ? new RenderCachingView(viewName, view, renderedViewCache) : view;
+            }
+        };
+        viewResolver.setTemplateEngine(templateEngine);
+        viewResolver.setCharacterEncoding("UTF-8");
+        viewResolver.setContentType("text/html;charset=UTF-8");
+        viewResolver.setOrder(Ordered.LOWEST_PRECEDENCE - 5);
+        return viewResolver;
+    }
+
     @Bean
     public WeatherIconUtil weatherIconUtil() {
         return new WeatherIconUtil();
     }
 }
-
@@ -0,0 +1,35 @@
+package com.raphael.WeatherAPI.controller;
+
+import com.raphael.WeatherAPI.service.WeatherService;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/locations")
+public class LocationController {
+
+    private static final int MAX_SUGGESTIONS = 20;
+
+    private final WeatherService service;
+
+    public LocationController(WeatherService service) {
+        this.service = service;
+    }
+
+    /**
+     * Suggests city names for the text typed so far, answered from the in-memory location index.
+     *
+     * @param query the beginning of a city name
+     * @param limit the maximum number of suggestions, capped at 20
+     * @return the known city names starting with the query
+     */
+    @GetMapping("/suggest")
+    public List<String> suggest(@RequestParam("q") String query,
+                                @RequestParam(value = "limit", defaultValue = "10") int limit) {
+        return service.suggestLocations(query, Math.max(1, Math.min(limit, MAX_SUGGESTIONS)));
+    }
+}
@@ -0,0 +1,175 @@
+package com.raphael.WeatherAPI.controller;
+
+import com.raphael.WeatherAPI.model.CityWeatherResult;
+import com.raphael.WeatherAPI.model.CurrentWeather;
+import com.raphael.WeatherAPI.model.Timestamped;
+import com.raphael.WeatherAPI.model.WeatherForecast;
+import com.raphael.WeatherAPI.service.WeatherBatchService;
+import com.raphael.WeatherAPI.service.WeatherService;
+import com.raphael.WeatherAPI.service.WeatherUpdateHub;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JSON variant of the weather pages. Responses carry a strong ETag and a Cache-Control max-age matching the time
+ * left before the cached data is refreshed. A request whose If-None-Match matches is answered with 304 by Spring
+ * before the body is written.
+ */
+@RestController
+@RequestMapping("/api/weather")
+public class WeatherApiController {
+
+    private final WeatherService service;
+    private final WeatherBatchService batchService;
+    private final WeatherUpdateHub updateHub;
+    private final int maxBatchSize;
+    private final int maxStreamCities;
+    private final Duration streamTimeout;
+
+    public WeatherApiController(WeatherService service, WeatherBatchService batchService, WeatherUpdateHub updateHub,
+                                @Value("${weather.batch.max-cities:100}") int maxBatchSize,
+                                @Value("${weather.stream.max-cities:20}") int maxStreamCities,
+                                @Value("${weather.stream.timeout:30m}") Duration streamTimeout) {
+        this.service = service;
+        this.batchService = batchService;
+        this.updateHub = updateHub;
+        this.maxBatchSize = maxBatchSize;
+        this.maxStreamCities = maxStreamCities;
+        this.streamTimeout = streamTimeout;
+    }
+
+    /**
+     * Retrieves the current weather for the specified location as JSON.
+     *
+     * @param location the location for which to retrieve the current weather
+     * @return a future completed with the current weather, or 404 if it is not available
+     */
+    @GetMapping("/{location}")
+    public CompletableFuture<ResponseEntity<CurrentWeather>> getCurrentWeather(@PathVariable("location") String location) {
+        return service.getTimestampedCurrentWeatherAsync(location)
+                .thenApply(currentWeather -> cacheableResponse(currentWeather, service.currentWeatherTtl()));
+    }
+
+    /**
+     * Retrieves the weather forecast for the specified location as JSON.
+     *
+     * @param location the location for which to retrieve the weather forecast
+     * @return a future completed with the forecasts for the next few days, or 404 if they are not available
+     */
+    @GetMapping("/{location}/forecast")
+    public CompletableFuture<ResponseEntity<List<WeatherForecast>>> getWeatherForecast(@PathVariable("location") String location) {
+        return service.getTimestampedWeatherForecastAsync(location)
+                .thenApply(weatherForecasts -> cacheableResponse(weatherForecasts, service.weatherForecastTtl()));
+    }
+
+    /**
+     * Retrieves the current weather for a list of cities in a single request.
+     * Cities that cannot be resolved or fetched are reported individually instead of failing the whole batch.
+     *
+     * @param cities the names of the cities
+     * @return a future completed with one result per distinct city, in request order
+     */
+    @PostMapping("/batch")
+    public CompletableFuture<List<CityWeatherResult>> getCurrentWeatherBatch(@RequestBody List<String> cities) {
+        if (cities.size() > maxBatchSize) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "A batch can contain at most " + maxBatchSize + " cities");
+        }
+        return batchService.getCurrentWeather(cities);
+    }
+
+    /**
+     * Streams the current weather of a set of cities as server-sent events. The latest value of every city is sent
+     * first, then a "weather" event whenever it changes. The stream is closed after the configured timeout,
+     * EventSource clients reconnect on their own.
+     *
+     * @param cities the names of the cities to watch
+     * @return the event stream
+     */
+    @GetMapping(path = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamCurrentWeather(@RequestParam("cities") List<String> cities) {
+        if (cities.isEmpty() || cities.size() > maxStreamCities) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "A stream can watch between 1 and " + maxStreamCities + " cities");
+        }
+        SseEmitter emitter = new SseEmitter(streamTimeout.toMillis());
+        WeatherUpdateHub.Subscription subscription;
+        try {
+            subscription = updateHub.subscribe(cities, new SseSink(emitter))
+                    .orElseThrow(() -> new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Too many open weather streams"));
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+        emitter.onCompletion(subscription::cancel);
+        emitter.onTimeout(subscription::cancel);
+        emitter.onError(e -> subscription.cancel());
+        return emitter;
+    }
+
+    /**
+     * Builds a response that clients and CDNs may cache until the entry is due for a refresh.
+     * A stale entry, served while upstream is revalidated or unavailable, is marked with a Warning header and max-age=0.
+     *
+     * @param entry the timestamped value, empty if not available
+     * @param ttl   how long a fetched value stays fresh
+     * @return a 200 response with ETag, Last-Modified and Cache-Control headers, or 404 if the entry is empty
+     */
+    private static <T> ResponseEntity<T> cacheableResponse(Optional<Timestamped<T>> entry, Duration ttl) {
+        if (entry.isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+        Timestamped<T> timestamped = entry.get();
+        Duration age = Duration.between(timestamped.fetchedAt(), Instant.now());
+        long maxAge = Math.max(0, ttl.minus(age).toSeconds());
+
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (timestamped.isStale(ttl)) {
+            response.header(HttpHeaders.WARNING, "110 - \"Response is Stale\"");
+        }
+        return response
+                .eTag(timestamped.etag())
+                .lastModified(timestamped.fetchedAt())
+                .cacheControl(CacheControl.maxAge(maxAge, TimeUnit.SECONDS))
+                .body(timestamped.value());
+    }
+
+    /**
+     * Writes the updates of a subscription to a server-sent event stream.
+     */
+    private record SseSink(SseEmitter emitter) implements WeatherUpdateHub.Sink {
+
+        @Override
+        public void send(CurrentWeather currentWeather) throws IOException {
+            emitter.send(SseEmitter.event().name("weather").data(currentWeather, MediaType.APPLICATION_JSON));
+        }
+
+        @Override
+        public void heartbeat() throws IOException {
+            emitter.send(SseEmitter.event().comment("heartbeat"));
+        }
+
+        @Override
+        public void close() {
+            emitter.complete();
+        }
+    }
+}
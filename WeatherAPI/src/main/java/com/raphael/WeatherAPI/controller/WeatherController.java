@@ -1,15 +1,19 @@
 package com.raphael.WeatherAPI.controller;
 
+import com.raphael.WeatherAPI.configuration.RenderCachingView;
 import com.raphael.WeatherAPI.model.CurrentWeather;
-import com.raphael.WeatherAPI.model.WeatherForecast;
+import com.raphael.WeatherAPI.model.Timestamped;
 import com.raphael.WeatherAPI.service.WeatherService;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestParam;
 
+import java.time.Duration;
 import java.util.List;
-import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 @Controller
 public class WeatherController {
@@ -32,44 +36,103 @@ public class WeatherController {
 
     /**
      * Retrieves the current weather for the specified location and adds it to the model.
+     * The request is handled asynchronously, so the servlet thread is released while the weather is fetched.
+     * The version of the cached weather is added as render key, so the page is only rendered again once the data changes.
      *
      * @param location the location for which to retrieve the current weather
      * @param model    the model to add the current weather object
-     * @return the view name for displaying the current weather
-     * @throws Exception if the weather information is not available
+     * @return a future completed with the view name for displaying the current weather,
+     * or completed exceptionally if the weather information is not available
      */
     @GetMapping("/weather/{location}")
-    public String getCurrentWeatherFromLocation(@PathVariable("location") String location, Model model) throws Exception {
+    public CompletableFuture<String> getCurrentWeatherFromLocation(@PathVariable("location") String location, Model model) {
 
-        Optional<CurrentWeather> optionalCurrentWeather = service.getCurrentWeather(location);
+        return service.getTimestampedCurrentWeatherAsync(location).thenApply(optionalCurrentWeather -> {
+            if (optionalCurrentWeather.isPresent()) {
+                Timestamped<CurrentWeather> currentWeather = optionalCurrentWeather.get();
+                model.addAttribute("currentWeather", currentWeather.value());
+                addFreshness(model, currentWeather, service.currentWeatherTtl());
+                return "current-weather";
+            } else {
+                throw new CompletionException(new Exception(notAvailableMessage(location)));
+            }
+        });
+    }
 
-        if (optionalCurrentWeather.isPresent()) {
-            CurrentWeather currentWeather = optionalCurrentWeather.get();
-            model.addAttribute("currentWeather", currentWeather);
-            return "current-weather";
-        } else {
-            throw new Exception("Weather information not available for the specified location");
-        }
+    /**
+     * Retrieves the current weather of the known city closest to the given coordinates and adds it to the model.
+     * Like a lookup by name, the page is cached under the version of the weather data and flagged when it is stale.
+     *
+     * @param latitude  the latitude of the client in degrees
+     * @param longitude the longitude of the client in degrees
+     * @param model     the model to add the current weather object
+     * @return a future completed with the view name for displaying the current weather,
+     * or completed exceptionally if the weather information is not available
+     */
+    @GetMapping("/weather/near")
+    public CompletableFuture<String> getCurrentWeatherNearCoordinates(@RequestParam("lat") double latitude,
+                                                                      @RequestParam("lon") double longitude, Model model) {
+
+        return service.getCurrentWeatherNearAsync(latitude, longitude).thenApply(optionalCurrentWeather -> {
+            if (optionalCurrentWeather.isPresent()) {
+                Timestamped<CurrentWeather> currentWeather = optionalCurrentWeather.get();
+                model.addAttribute("currentWeather", currentWeather.value());
+                addFreshness(model, currentWeather, service.currentWeatherTtl());
+                return "current-weather";
+            } else {
+                throw new CompletionException(new Exception("Weather information not available for the specified coordinates"));
+            }
+        });
     }
 
     /**
      * Retrieves the weather forecast for the specified location and adds it to the model.
+     * The request is handled asynchronously, so the servlet thread is released while the forecast is fetched.
+     * The version of the cached forecast is added as render key, so the page is only rendered again once the data changes.
      *
      * @param location the location for which to retrieve the weather forecast
      * @param model    the model to add the list of weather forecasts
-     * @return the view name for displaying the weather forecast
-     * @throws Exception if the weather information is not available
+     * @return a future completed with the view name for displaying the weather forecast,
+     * or completed exceptionally if the weather information is not available
      */
     @GetMapping("/forecast/{location}")
-    public String getForecastFromLocation(@PathVariable("location") String location, Model model) throws Exception {
+    public CompletableFuture<String> getForecastFromLocation(@PathVariable("location") String location, Model model) {
 
-        List<WeatherForecast> weatherForecasts = service.getWeatherForecast(location);
+        return service.getTimestampedWeatherForecastAsync(location).thenApply(weatherForecasts -> {
+            if (weatherForecasts.isPresent()) {
+                model.addAttribute("forecastedWeather", weatherForecasts.get().value()); // forecastedWeather is the variable we will use in HTML to access the properties
+                addFreshness(model, weatherForecasts.get(), service.weatherForecastTtl());
+                return "forecast-weather";
+            } else {
+                throw new CompletionException(new Exception(notAvailableMessage(location)));
+            }
+        });
+    }
 
-        if (!weatherForecasts.isEmpty()) {
-            model.addAttribute("forecastedWeather", weatherForecasts); // forecastedWeather is the variable we will use in HTML to access the properties
-            return "forecast-weather";
-        } else {
-            throw new Exception("Weather information not available for the specified location");
+    /**
+     * Adds whether the data is stale and the render key of the page, stale and fresh pages are cached separately.
+     *
+     * @param model the model of the page
+     * @param entry the data shown on the page
+     * @param ttl   how long the data stays fresh
+     */
+    private static void addFreshness(Model model, Timestamped<?> entry, Duration ttl) {
+        boolean stale = entry.isStale(ttl);
+        model.addAttribute("stale", stale);
+        model.addAttribute(RenderCachingView.RENDER_KEY, stale ? entry.etag() + "-stale" : entry.etag());
+    }
+
+    /**
+     * Builds the error message for a location without weather information, hinting at similar known city names.
+     *
+     * @param location the location as requested
+     * @return the error message
+     */
+    private String notAvailableMessage(String location) {
+        List<String> suggestions = service.suggestSimilarLocations(location);
+        if (suggestions.isEmpty()) {
+            return "Weather information not available for the specified location";
         }
+        return "Weather information not available for the specified location, did you mean: " + String.join(", ", suggestions) + "?";
     }
 }
@@ -0,0 +1,34 @@
+package com.raphael.WeatherAPI.controller;
+
+import com.raphael.WeatherAPI.service.LocationIndexNotReadyException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+
+import java.time.Duration;
+
+@ControllerAdvice
+public class WeatherExceptionHandler {
+
+    private final Duration retryAfter;
+
+    public WeatherExceptionHandler(@Value("${locations.seed.retry-after:5s}") Duration retryAfter) {
+        this.retryAfter = retryAfter;
+    }
+
+    /**
+     * Answers requests arriving while the locations are still being seeded with a 503, telling clients when to retry.
+     *
+     * @param e the exception raised by the service
+     * @return a 503 response with a Retry-After header
+     */
+    @ExceptionHandler(LocationIndexNotReadyException.class)
+    public ResponseEntity<String> handleLocationIndexNotReady(LocationIndexNotReadyException e) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfter.toSeconds()))
+                .body(e.getMessage());
+    }
+}
@@ -0,0 +1,20 @@
+package com.raphael.WeatherAPI.model;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+/**
+ * Outcome of one city in a batch lookup: either the current weather or the reason it is missing.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record CityWeatherResult(String location,
+                                CurrentWeather currentWeather,
+                                String error) {
+
+    public static CityWeatherResult of(String location, CurrentWeather currentWeather) {
+        return new CityWeatherResult(location, currentWeather, null);
+    }
+
+    public static CityWeatherResult error(String location, String error) {
+        return new CityWeatherResult(location, null, error);
+    }
+}
@@ -10,7 +10,12 @@ import org.springframework.data.mongodb.core.mapping.Document;
 public record Location(
         @Id
         @JsonProperty("name") String name,
-        @JsonProperty("coord") Coordinates coordinates) {
+        @JsonProperty("coord") Coordinates coordinates,
+        @JsonProperty("id") Long cityId) {
+
+    public Location(String name, Coordinates coordinates) {
+        this(name, coordinates, null);
+    }
 
     public record Coordinates(
             @JsonProperty("lat") Double latitude,
@@ -0,0 +1,17 @@
+package com.raphael.WeatherAPI.model;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.Instant;
+
+/**
+ * Records which version of a seed file was last applied to its collection.
+ */
+@Document("seed_metadata")
+public record SeedMetadata(
+        @Id String name,
+        String checksum,
+        long count,
+        Instant seededAt) {
+}
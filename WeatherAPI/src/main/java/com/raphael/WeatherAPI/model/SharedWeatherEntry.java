@@ -0,0 +1,22 @@
+package com.raphael.WeatherAPI.model;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Weather of one city shared between instances, keyed by the formatted city name like the locations collection.
+ * The current weather and the forecast are written independently, the document is removed by a TTL index
+ * once expiresAt has passed.
+ */
+@Document("weather_cache")
+public record SharedWeatherEntry(
+        @Id String name,
+        CurrentWeather currentWeather,
+        Instant currentFetchedAt,
+        List<WeatherForecast> forecast,
+        Instant forecastFetchedAt,
+        Instant expiresAt) {
+}
@@ -0,0 +1,42 @@
+package com.raphael.WeatherAPI.model;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HexFormat;
+
+/**
+ * A value together with the time it was fetched from upstream and a strong entity tag derived from its content.
+ * The tag is computed once when the value is stored, so revalidating clients are answered without serializing the value.
+ *
+ * @param value     the fetched value
+ * @param fetchedAt when the value was fetched from upstream
+ * @param etag      the quoted strong entity tag of the value
+ * @param <T>       the value type
+ */
+public record Timestamped<T>(T value, Instant fetchedAt, String etag) {
+
+    public static <T> Timestamped<T> of(T value, Instant fetchedAt) {
+        return new Timestamped<>(value, fetchedAt, etagOf(value));
+    }
+
+    /**
+     * @param ttl how long a fetched value stays fresh
+     * @return true if the value was fetched longer than ttl ago
+     */
+    public boolean isStale(Duration ttl) {
+        return fetchedAt.plus(ttl).isBefore(Instant.now());
+    }
+
+    private static String etagOf(Object value) {
+        try {
+            // records and lists render every component, so equal content always produces the same tag on every instance
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(String.valueOf(value).getBytes(StandardCharsets.UTF_8));
+            return "\"" + HexFormat.of().formatHex(digest, 0, 16) + "\"";
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
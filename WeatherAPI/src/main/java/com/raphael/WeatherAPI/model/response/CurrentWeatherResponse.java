@@ -4,11 +4,9 @@ import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import com.fasterxml.jackson.annotation.JsonProperty;
 
 import java.util.List;
-import java.util.Map;
 
 @JsonIgnoreProperties(ignoreUnknown = true)
-public record CurrentWeatherResponse(@JsonProperty("main") Map<String, Object> main,
-                                     @JsonProperty("wind") Map<String, Object> wind,
-                                     @JsonProperty("weather") List<Map<String, Object>> weather) {
+public record CurrentWeatherResponse(@JsonProperty("main") MainResponse main,
+                                     @JsonProperty("wind") WindResponse wind,
+                                     @JsonProperty("weather") List<WeatherConditionResponse> weather) {
 }
-
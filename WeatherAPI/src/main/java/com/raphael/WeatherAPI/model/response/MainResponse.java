@@ -0,0 +1,9 @@
+package com.raphael.WeatherAPI.model.response;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+@JsonIgnoreProperties(ignoreUnknown = true)
+public record MainResponse(@JsonProperty("temp") double temp,
+                           @JsonProperty("humidity") int humidity) {
+}
@@ -4,11 +4,10 @@ import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import com.fasterxml.jackson.annotation.JsonProperty;
 
 import java.util.List;
-import java.util.Map;
 
 @JsonIgnoreProperties(ignoreUnknown = true)
-public record WeatherForecastResponse(@JsonProperty("dt") Object date,
-                                      @JsonProperty("main") Map<String, Object> main,
-                                      @JsonProperty("wind") Map<String, Object> wind,
-                                      @JsonProperty("weather") List<Map<String, Object>> weather) {
+public record WeatherForecastResponse(@JsonProperty("dt") long date,
+                                      @JsonProperty("main") MainResponse main,
+                                      @JsonProperty("wind") WindResponse wind,
+                                      @JsonProperty("weather") List<WeatherConditionResponse> weather) {
 }
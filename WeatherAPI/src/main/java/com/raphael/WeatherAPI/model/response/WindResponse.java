@@ -0,0 +1,8 @@
+package com.raphael.WeatherAPI.model.response;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+@JsonIgnoreProperties(ignoreUnknown = true)
+public record WindResponse(@JsonProperty("speed") double speed) {
+}
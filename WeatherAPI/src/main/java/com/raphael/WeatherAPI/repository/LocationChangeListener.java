@@ -0,0 +1,38 @@
+package com.raphael.WeatherAPI.repository;
+
+import com.raphael.WeatherAPI.model.Location;
+import com.raphael.WeatherAPI.service.LocationIndex;
+import org.springframework.data.mongodb.core.mapping.event.AbstractMongoEventListener;
+import org.springframework.data.mongodb.core.mapping.event.AfterDeleteEvent;
+import org.springframework.data.mongodb.core.mapping.event.AfterSaveEvent;
+import org.springframework.stereotype.Component;
+
+/**
+ * Keeps the in-memory location index in sync with locations saved or deleted through Spring Data.
+ * Writes made while seeding are skipped, bulk upserts report every document and seeding rebuilds the index once at the end.
+ */
+@Component
+public class LocationChangeListener extends AbstractMongoEventListener<Location> {
+
+    private final LocationIndex locationIndex;
+
+    public LocationChangeListener(LocationIndex locationIndex) {
+        this.locationIndex = locationIndex;
+    }
+
+    @Override
+    public void onAfterSave(AfterSaveEvent<Location> event) {
+        refresh();
+    }
+
+    @Override
+    public void onAfterDelete(AfterDeleteEvent<Location> event) {
+        refresh();
+    }
+
+    private void refresh() {
+        if (!locationIndex.isSeeding()) {
+            locationIndex.refreshAsync();
+        }
+    }
+}
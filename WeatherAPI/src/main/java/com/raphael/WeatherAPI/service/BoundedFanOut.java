@@ -0,0 +1,74 @@
+package com.raphael.WeatherAPI.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * Runs an asynchronous task for every item with at most maxConcurrency tasks outstanding at any time.
+ * Each completing task starts the next pending one, so no thread is parked waiting for a permit.
+ *
+ * @param <T> the item type
+ * @param <R> the result type
+ */
+public final class BoundedFanOut<T, R> {
+
+    private final List<T> items;
+    private final Executor executor;
+    private final Function<T, CompletableFuture<R>> task;
+    private final List<CompletableFuture<R>> results;
+    private final AtomicInteger next = new AtomicInteger();
+
+    private BoundedFanOut(List<T> items, Executor executor, Function<T, CompletableFuture<R>> task) {
+        this.items = items;
+        this.executor = executor;
+        this.task = task;
+        this.results = new ArrayList<>(items.size());
+        for (int i = 0; i < items.size(); i++) {
+            results.add(new CompletableFuture<>());
+        }
+    }
+
+
+    /**
+     * Applies the task to every item.
+     *
+     * @param items          the items to process
+     * @param maxConcurrency the maximum number of tasks running at the same time
+     * @param executor       the executor each task is started on, so blocking tasks still run in parallel
+     * @param task           the task to run for each item
+     * @param <T>            the item type
+     * @param <R>            the result type
+     * @return a future completed with the results in item order, or failed with the first task failure
+     */
+    public static <T, R> CompletableFuture<List<R>> map(List<T> items, int maxConcurrency, Executor executor,
+                                                        Function<T, CompletableFuture<R>> task) {
+        BoundedFanOut<T, R> fanOut = new BoundedFanOut<>(List.copyOf(items), executor, task);
+        int workers = Math.min(Math.max(1, maxConcurrency), items.size());
+        for (int i = 0; i < workers; i++) {
+            fanOut.startNext();
+        }
+        return CompletableFuture.allOf(fanOut.results.toArray(CompletableFuture[]::new))
+                .thenApply(ignored -> fanOut.results.stream().map(CompletableFuture::join).toList());
+    }
+
+    private void startNext() {
+        int index = next.getAndIncrement();
+        if (index >= items.size()) {
+            return;
+        }
+        CompletableFuture.supplyAsync(() -> task.apply(items.get(index)), executor)
+                .thenCompose(Function.identity())
+                .whenComplete((value, error) -> {
+                    if (error != null) {
+                        results.get(index).completeExceptionally(error);
+                    } else {
+                        results.get(index).complete(value);
+                    }
+                    startNext();
+                });
+    }
+}
@@ -0,0 +1,74 @@
+package com.raphael.WeatherAPI.service;
+
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counts current weather lookups per city to find the hot cities worth refreshing ahead of expiry.
+ * Counts are halved on every decay, so the ranking follows recent traffic rather than all-time totals,
+ * and cities nobody asks for anymore drop out of the map.
+ */
+@Component
+public class CityAccessTracker {
+
+    private final Map<String, LongAdder> accesses = new ConcurrentHashMap<>();
+
+
+    /**
+     * Records a lookup served for the given city.
+     *
+     * @param cityName the formatted city name
+     */
+    public void recordAccess(String cityName) {
+        accesses.computeIfAbsent(cityName, key -> new LongAdder()).increment();
+    }
+
+    /**
+     * Returns the most accessed cities.
+     *
+     * @param limit the maximum number of cities to return
+     * @return the city names, most accessed first
+     */
+    public List<String> hottest(int limit) {
+        if (limit <= 0) {
+            return List.of();
+        }
+        // min-heap of the best candidates so far, the least accessed one is replaced first
+        PriorityQueue<Map.Entry<String, Long>> top = new PriorityQueue<>(limit + 1, Map.Entry.comparingByValue());
+        for (Map.Entry<String, LongAdder> entry : accesses.entrySet()) {
+            top.add(Map.entry(entry.getKey(), entry.getValue().sum()));
+            if (top.size() > limit) {
+                top.poll();
+            }
+        }
+        List<Map.Entry<String, Long>> sorted = new ArrayList<>(top);
+        sorted.sort(Map.Entry.<String, Long>comparingByValue(Comparator.reverseOrder()));
+        return sorted.stream().map(Map.Entry::getKey).toList();
+    }
+
+    /**
+     * Halves every count and forgets the cities that reach zero.
+     */
+    public void decay() {
+        accesses.entrySet().removeIf(entry -> {
+            LongAdder count = entry.getValue();
+            long halved = count.sumThenReset() / 2;
+            count.add(halved);
+            return halved == 0;
+        });
+    }
+
+    /**
+     * @return the number of cities currently tracked
+     */
+    public int size() {
+        return accesses.size();
+    }
+}
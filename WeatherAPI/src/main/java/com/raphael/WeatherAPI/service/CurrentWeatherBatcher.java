@@ -0,0 +1,193 @@
+package com.raphael.WeatherAPI.service;
+
+import com.raphael.WeatherAPI.model.response.CurrentWeatherResponse;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Micro-batches current weather lookups into OpenWeatherMap group calls.
+ * Lookups arriving within the batching window are collected and sent as one request for up to maxBatchSize cities,
+ * and the response is split back to the waiting callers. Trades at most one window of latency for far fewer
+ * upstream calls when many cities are requested at the same time.
+ * The scheduler thread only runs the window timers, group calls are made on a bounded pool of sender threads,
+ * and each call counts once towards the circuit breaker however many cities it carried.
+ */
+@Component
+public class CurrentWeatherBatcher implements MeterBinder {
+
+    private final OpenWeatherMapClient weatherClient;
+    private final UpstreamCircuitBreaker circuitBreaker;
+    private final boolean enabled;
+    private final Duration window;
+    private final int maxBatchSize;
+    private final ScheduledExecutorService scheduler;
+    private final ThreadPoolExecutor sender;
+
+    // guarded by this
+    private Map<Long, CompletableFuture<CurrentWeatherResponse>> pending = new LinkedHashMap<>();
+    private volatile DistributionSummary batchSizes;
+
+    public CurrentWeatherBatcher(OpenWeatherMapClient weatherClient, UpstreamCircuitBreaker circuitBreaker,
+                                 @Value("${openweathermap.group.enabled:false}") boolean enabled,
+                                 @Value("${openweathermap.group.window:10ms}") Duration window,
+                                 @Value("${openweathermap.group.max-size:20}") int maxBatchSize,
+                                 @Value("${openweathermap.group.max-concurrent-calls:4}") int maxConcurrentCalls,
+                                 @Value("${openweathermap.group.max-queued-calls:100}") int maxQueuedCalls) {
+        this.weatherClient = weatherClient;
+        this.circuitBreaker = circuitBreaker;
+        this.enabled = enabled;
+        this.window = window;
+        this.maxBatchSize = maxBatchSize;
+        this.scheduler = enabled ? Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "weather-group-batcher");
+            thread.setDaemon(true);
+            return thread;
+        }) : null;
+        this.sender = enabled ? newSender(maxConcurrentCalls, maxQueuedCalls) : null;
+    }
+
+
+    /**
+     * @return true if lookups should go through the batcher
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Queues a current weather lookup for the next group call.
+     *
+     * @param cityId the OpenWeatherMap id of the city
+     * @return a future completed with the current weather of the city once its group call has returned
+     */
+    public CompletableFuture<CurrentWeatherResponse> fetch(long cityId) {
+        Map<Long, CompletableFuture<CurrentWeatherResponse>> full = null;
+        CompletableFuture<CurrentWeatherResponse> result;
+
+        synchronized (this) {
+            result = pending.get(cityId);
+            if (result == null) {
+                result = new CompletableFuture<>();
+                pending.put(cityId, result);
+                if (pending.size() == 1) {
+                    Map<Long, CompletableFuture<CurrentWeatherResponse>> batch = pending;
+                    scheduler.schedule(() -> flush(batch), window.toNanos(), TimeUnit.NANOSECONDS);
+                }
+                if (pending.size() >= maxBatchSize) {
+                    full = pending;
+                    pending = new LinkedHashMap<>();
+                }
+            }
+        }
+
+        if (full != null) {
+            send(full);
+        }
+        return result.copy();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+            sender.shutdownNow();
+        }
+    }
+
+    /**
+     * Publishes the number of cities sent per group call.
+     *
+     * @param registry the registry to bind the batching metrics to
+     */
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        batchSizes = DistributionSummary.builder("weather.upstream.group.size")
+                .description("Number of cities fetched per upstream group call")
+                .register(registry);
+    }
+
+    private void flush(Map<Long, CompletableFuture<CurrentWeatherResponse>> batch) {
+        synchronized (this) {
+            // the batch may already have been sent because it filled up before the window elapsed
+            if (pending != batch) {
+                return;
+            }
+            pending = new LinkedHashMap<>();
+        }
+        send(batch);
+    }
+
+    /**
+     * Hands the batch to the sender pool, neither the scheduler thread nor the caller that filled the batch
+     * waits for the group call.
+     */
+    private void send(Map<Long, CompletableFuture<CurrentWeatherResponse>> batch) {
+        DistributionSummary summary = batchSizes;
+        if (summary != null) {
+            summary.record(batch.size());
+        }
+
+        try {
+            sender.execute(() -> call(batch));
+        } catch (RejectedExecutionException e) {
+            // every sender is busy and the queue is full, upstream is not keeping up
+            circuitBreaker.onFailure();
+            batch.values().forEach(result -> result.completeExceptionally(e));
+        }
+    }
+
+    private void call(Map<Long, CompletableFuture<CurrentWeatherResponse>> batch) {
+        CompletableFuture<Map<Long, CurrentWeatherResponse>> responses;
+        try {
+            responses = weatherClient.fetchCurrentWeatherGroup(new ArrayList<>(batch.keySet()));
+        } catch (RuntimeException e) {
+            responses = CompletableFuture.failedFuture(e);
+        }
+
+        responses.whenComplete((byCityId, error) -> {
+            if (error != null) {
+                circuitBreaker.onFailure();
+            } else {
+                circuitBreaker.onSuccess();
+            }
+            batch.forEach((cityId, result) -> {
+                if (error != null) {
+                    result.completeExceptionally(error);
+                } else if (byCityId.containsKey(cityId)) {
+                    result.complete(byCityId.get(cityId));
+                } else {
+                    result.completeExceptionally(new IllegalStateException("City " + cityId + " missing from the group response"));
+                }
+            });
+        });
+    }
+
+    private static ThreadPoolExecutor newSender(int maxConcurrentCalls, int maxQueuedCalls) {
+        AtomicInteger threads = new AtomicInteger();
+        ThreadPoolExecutor sender = new ThreadPoolExecutor(maxConcurrentCalls, maxConcurrentCalls, 30, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(maxQueuedCalls), runnable -> {
+            Thread thread = new Thread(runnable, "weather-group-sender-" + threads.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        sender.allowCoreThreadTimeOut(true);
+        return sender;
+    }
+}
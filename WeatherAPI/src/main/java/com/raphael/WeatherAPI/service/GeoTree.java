@@ -0,0 +1,151 @@
+package com.raphael.WeatherAPI.service;
+
+/**
+ * Static 3-d tree over points on the unit sphere, used to find the location closest to a pair of coordinates.
+ * Coordinates are converted to unit vectors, the straight-line distance between two vectors grows with their
+ * great-circle distance, so the tree can prune with plain Euclidean bounds without any special casing
+ * of the poles or the antimeridian.
+ * The tree is stored implicitly: the median of every range is its root, so no node objects are allocated.
+ */
+final class GeoTree {
+
+    private final String[] names;
+    private final double[] points;
+
+    /**
+     * @param names      the location names, reordered in place while the tree is built
+     * @param latitudes  the latitude of each location in degrees
+     * @param longitudes the longitude of each location in degrees
+     */
+    GeoTree(String[] names, double[] latitudes, double[] longitudes) {
+        this.names = names;
+        this.points = new double[names.length * 3];
+        for (int i = 0; i < names.length; i++) {
+            toUnitVector(latitudes[i], longitudes[i], points, i * 3);
+        }
+        build(0, names.length, 0);
+    }
+
+
+    /**
+     * Finds the location closest to the given coordinates.
+     *
+     * @param latitude  the latitude in degrees
+     * @param longitude the longitude in degrees
+     * @return the name of the closest location, or null if the tree is empty
+     */
+    String nearest(double latitude, double longitude) {
+        if (names.length == 0) {
+            return null;
+        }
+        double[] target = new double[3];
+        toUnitVector(latitude, longitude, target, 0);
+        Nearest best = new Nearest();
+        search(0, names.length, 0, target, best);
+        return names[best.index];
+    }
+
+    /**
+     * @return the number of locations in the tree
+     */
+    int size() {
+        return names.length;
+    }
+
+    private void build(int from, int to, int axis) {
+        if (to - from <= 1) {
+            return;
+        }
+        int median = (from + to) >>> 1;
+        select(from, to - 1, median, axis);
+        build(from, median, (axis + 1) % 3);
+        build(median + 1, to, (axis + 1) % 3);
+    }
+
+    private void search(int from, int to, int axis, double[] target, Nearest best) {
+        if (from >= to) {
+            return;
+        }
+        int median = (from + to) >>> 1;
+        double distance = squaredDistance(median, target);
+        if (distance < best.distance) {
+            best.distance = distance;
+            best.index = median;
+        }
+
+        double delta = target[axis] - points[median * 3 + axis];
+        int nextAxis = (axis + 1) % 3;
+        if (delta < 0) {
+            search(from, median, nextAxis, target, best);
+            if (delta * delta < best.distance) {
+                search(median + 1, to, nextAxis, target, best);
+            }
+        } else {
+            search(median + 1, to, nextAxis, target, best);
+            if (delta * delta < best.distance) {
+                search(from, median, nextAxis, target, best);
+            }
+        }
+    }
+
+    /**
+     * Quickselect: partially orders the range so the element at k has its final position along the axis.
+     */
+    private void select(int left, int right, int k, int axis) {
+        while (left < right) {
+            double pivot = points[((left + right) >>> 1) * 3 + axis];
+            int i = left;
+            int j = right;
+            while (i <= j) {
+                while (points[i * 3 + axis] < pivot) {
+                    i++;
+                }
+                while (points[j * 3 + axis] > pivot) {
+                    j--;
+                }
+                if (i <= j) {
+                    swap(i++, j--);
+                }
+            }
+            if (k <= j) {
+                right = j;
+            } else if (k >= i) {
+                left = i;
+            } else {
+                return;
+            }
+        }
+    }
+
+    private void swap(int a, int b) {
+        String name = names[a];
+        names[a] = names[b];
+        names[b] = name;
+        for (int d = 0; d < 3; d++) {
+            double value = points[a * 3 + d];
+            points[a * 3 + d] = points[b * 3 + d];
+            points[b * 3 + d] = value;
+        }
+    }
+
+    private double squaredDistance(int index, double[] target) {
+        double dx = points[index * 3] - target[0];
+        double dy = points[index * 3 + 1] - target[1];
+        double dz = points[index * 3 + 2] - target[2];
+        return dx * dx + dy * dy + dz * dz;
+    }
+
+    private static void toUnitVector(double latitude, double longitude, double[] out, int offset) {
+        double lat = Math.toRadians(latitude);
+        double lon = Math.toRadians(longitude);
+        double cosLat = Math.cos(lat);
+        out[offset] = cosLat * Math.cos(lon);
+        out[offset + 1] = cosLat * Math.sin(lon);
+        out[offset + 2] = Math.sin(lat);
+    }
+
+    private static final class Nearest {
+        private double distance = Double.POSITIVE_INFINITY;
+        private int index = -1;
+    }
+}
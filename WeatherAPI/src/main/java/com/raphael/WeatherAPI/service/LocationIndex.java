@@ -0,0 +1,332 @@
+package com.raphael.WeatherAPI.service;
+
+import com.raphael.WeatherAPI.model.Location;
+import com.raphael.WeatherAPI.repository.WeatherRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-memory, read-only view of the locations collection used to resolve city names into coordinates,
+ * coordinates into the nearest known city and partial or misspelled names into suggestions,
+ * without a database round-trip. Mongo stays the source of truth, the index is rebuilt from it
+ * after seeding and whenever a location is saved or deleted.
+ */
+@Component
+public class LocationIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(LocationIndex.class);
+
+    private final WeatherRepository weatherRepository;
+    private final AtomicBoolean refreshPending = new AtomicBoolean();
+    // numbers every rebuild in the order it read the repository, an older read never replaces a newer one
+    private final AtomicLong rebuilds = new AtomicLong();
+    private final ExecutorService rebuilder;
+    private volatile Snapshot snapshot = Snapshot.of(List.of());
+    // guarded by this
+    private long installedRebuild;
+    private volatile boolean loaded;
+    private volatile boolean ready;
+    private volatile boolean seeding;
+
+    public LocationIndex(WeatherRepository weatherRepository) {
+        this.weatherRepository = weatherRepository;
+        this.rebuilder = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "location-index-rebuilder");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+
+    /**
+     * Looks up the coordinates of a city.
+     *
+     * @param cityName the formatted city name
+     * @return the coordinates of the city, or empty if the city is unknown
+     */
+    public Optional<Location.Coordinates> find(String cityName) {
+        return Optional.ofNullable(snapshot.get(cityName));
+    }
+
+    /**
+     * Looks up the OpenWeatherMap city id of a city.
+     *
+     * @param cityName the formatted city name
+     * @return the city id, or empty if the city is unknown or the seed file did not provide one
+     */
+    public Optional<Long> findCityId(String cityName) {
+        long cityId = snapshot.cityId(cityName);
+        return cityId > 0 ? Optional.of(cityId) : Optional.empty();
+    }
+
+    /**
+     * Finds the indexed location closest to the given coordinates.
+     *
+     * @param latitude  the latitude in degrees
+     * @param longitude the longitude in degrees
+     * @return the name of the closest location, or empty if the index is empty
+     */
+    public Optional<String> nearest(double latitude, double longitude) {
+        return Optional.ofNullable(snapshot.tree.nearest(latitude, longitude));
+    }
+
+    /**
+     * Suggests location names for autocomplete.
+     *
+     * @param prefix the beginning of a city name, matched ignoring case and diacritics
+     * @param limit  the maximum number of suggestions
+     * @return the names starting with the prefix, in alphabetical order
+     */
+    public List<String> suggest(String prefix, int limit) {
+        return snapshot.suggester.prefix(prefix, limit);
+    }
+
+    /**
+     * Suggests location names close to a name that could not be found, for "did you mean" hints.
+     *
+     * @param name  the name that could not be found
+     * @param limit the maximum number of suggestions
+     * @return the names within a small edit distance, closest first
+     */
+    public List<String> similar(String name, int limit) {
+        return snapshot.suggester.similar(name, limit);
+    }
+
+    /**
+     * @return the number of indexed locations
+     */
+    public int size() {
+        return snapshot.size();
+    }
+
+    /**
+     * @return the names of all indexed locations, in no particular order
+     */
+    public List<String> names() {
+        return snapshot.names();
+    }
+
+    /**
+     * @return true once the index has been built from the repository at least once
+     */
+    public boolean isLoaded() {
+        return loaded;
+    }
+
+    /**
+     * @return true once the index reflects a seeded collection, either one left by an earlier run or the one just seeded
+     */
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * Marks the index as ready to serve lookups.
+     */
+    public void markReady() {
+        ready = true;
+    }
+
+    /**
+     * Marks the start or end of seeding. Seeding writes the collection in batches and rebuilds the index once it is
+     * done, so change notifications are not worth a rebuild meanwhile.
+     *
+     * @param seeding true while seeding is writing the collection
+     */
+    public void setSeeding(boolean seeding) {
+        this.seeding = seeding;
+    }
+
+    /**
+     * @return true while seeding is writing the collection
+     */
+    public boolean isSeeding() {
+        return seeding;
+    }
+
+    /**
+     * Rebuilds the index from the repository and swaps it in atomically, readers never see a partially built index.
+     */
+    public void refresh() {
+        long rebuild = rebuilds.incrementAndGet();
+        install(rebuild, Snapshot.of(weatherRepository.findAll()));
+    }
+
+    /**
+     * Schedules a rebuild of the index. Rebuilds run one at a time on a dedicated thread, and calls arriving while
+     * a rebuild is already queued are folded into it, so saving many locations in a row triggers a single reload.
+     */
+    public void refreshAsync() {
+        if (!refreshPending.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            rebuilder.execute(() -> {
+                // cleared before reading, so a change saved during this rebuild queues the next one
+                refreshPending.set(false);
+                try {
+                    refresh();
+                } catch (RuntimeException e) {
+                    logger.error("Error occurred while refreshing the location index: {}", e.getMessage());
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            // shutting down
+            refreshPending.set(false);
+        }
+    }
+
+    /**
+     * Replaces the indexed locations.
+     *
+     * @param locations the complete set of locations
+     */
+    public void replace(Collection<Location> locations) {
+        install(rebuilds.incrementAndGet(), Snapshot.of(locations));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        rebuilder.shutdownNow();
+    }
+
+    private synchronized void install(long rebuild, Snapshot built) {
+        if (rebuild < installedRebuild) {
+            logger.debug("Discarding location index rebuild {}, rebuild {} read the repository later", rebuild, installedRebuild);
+            return;
+        }
+        installedRebuild = rebuild;
+        snapshot = built;
+        loaded = true;
+        logger.info("Location index built with {} locations", built.size());
+    }
+
+    /**
+     * Open-addressing map from city name to coordinates and city id. Latitude and longitude are packed next to each
+     * other in a single double array, so an index of the full city list costs a few arrays instead of an object per entry.
+     */
+    private static final class Snapshot {
+
+        private final String[] names;
+        private final double[] coordinates;
+        private final long[] cityIds;
+        private final int mask;
+        private final int size;
+        private final GeoTree tree;
+        private final NameSuggester suggester;
+
+        private Snapshot(String[] names, double[] coordinates, long[] cityIds, int size) {
+            this.names = names;
+            this.coordinates = coordinates;
+            this.cityIds = cityIds;
+            this.mask = names.length - 1;
+            this.size = size;
+            this.tree = buildTree();
+            this.suggester = new NameSuggester(names().toArray(String[]::new));
+        }
+
+        private static Snapshot of(Collection<Location> locations) {
+            List<Location> valid = new ArrayList<>(locations.size());
+            for (Location location : locations) {
+                if (location.name() != null && location.coordinates() != null
+                        && location.coordinates().latitude() != null && location.coordinates().longitude() != null) {
+                    valid.add(location);
+                }
+            }
+
+            // keep the load factor at or below 0.5 so probe sequences stay short
+            int capacity = Integer.highestOneBit(Math.max(2, valid.size() * 2 - 1)) << 1;
+            String[] names = new String[capacity];
+            double[] coordinates = new double[capacity * 2];
+            long[] cityIds = new long[capacity];
+            int mask = capacity - 1;
+            int size = 0;
+
+            for (Location location : valid) {
+                int slot = spread(location.name().hashCode()) & mask;
+                while (names[slot] != null && !names[slot].equals(location.name())) {
+                    slot = (slot + 1) & mask;
+                }
+                if (names[slot] == null) {
+                    size++;
+                }
+                names[slot] = location.name();
+                coordinates[slot * 2] = location.coordinates().latitude();
+                coordinates[slot * 2 + 1] = location.coordinates().longitude();
+                cityIds[slot] = location.cityId() != null ? location.cityId() : 0;
+            }
+            return new Snapshot(names, coordinates, cityIds, size);
+        }
+
+        private Location.Coordinates get(String name) {
+            int slot = slotOf(name);
+            return slot >= 0 ? new Location.Coordinates(coordinates[slot * 2], coordinates[slot * 2 + 1]) : null;
+        }
+
+        private long cityId(String name) {
+            int slot = slotOf(name);
+            return slot >= 0 ? cityIds[slot] : 0;
+        }
+
+        private int slotOf(String name) {
+            if (name == null) {
+                return -1;
+            }
+            int slot = spread(name.hashCode()) & mask;
+            String candidate;
+            while ((candidate = names[slot]) != null) {
+                if (candidate.equals(name)) {
+                    return slot;
+                }
+                slot = (slot + 1) & mask;
+            }
+            return -1;
+        }
+
+        private int size() {
+            return size;
+        }
+
+        private GeoTree buildTree() {
+            String[] treeNames = new String[size];
+            double[] latitudes = new double[size];
+            double[] longitudes = new double[size];
+            int next = 0;
+            for (int slot = 0; slot < names.length; slot++) {
+                if (names[slot] != null) {
+                    treeNames[next] = names[slot];
+                    latitudes[next] = coordinates[slot * 2];
+                    longitudes[next] = coordinates[slot * 2 + 1];
+                    next++;
+                }
+            }
+            return new GeoTree(treeNames, latitudes, longitudes);
+        }
+
+        private List<String> names() {
+            List<String> result = new ArrayList<>(size);
+            for (String name : names) {
+                if (name != null) {
+                    result.add(name);
+                }
+            }
+            return result;
+        }
+
+        private static int spread(int hash) {
+            return hash ^ (hash >>> 16);
+        }
+    }
+}
@@ -0,0 +1,11 @@
+package com.raphael.WeatherAPI.service;
+
+/**
+ * Thrown when a location lookup is attempted before the location index has been seeded.
+ */
+public class LocationIndexNotReadyException extends RuntimeException {
+
+    public LocationIndexNotReadyException() {
+        super("Location data is still being loaded, please retry shortly");
+    }
+}
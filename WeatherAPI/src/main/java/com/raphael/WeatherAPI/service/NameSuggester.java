@@ -0,0 +1,207 @@
+package com.raphael.WeatherAPI.service;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+/**
+ * Autocomplete and "did you mean" over the location names.
+ * Names are normalized (lower case, no diacritics, underscores as spaces) and kept in a sorted array,
+ * so a prefix query is a binary search followed by a sequential read of the matching range.
+ * Fuzzy matching computes a bounded Damerau-Levenshtein distance against the names of similar length only,
+ * and only once the set of characters in the name shows it can be close enough.
+ */
+final class NameSuggester {
+
+    private static final Pattern DIACRITICS = Pattern.compile("\\p{M}+");
+
+    private final String[] keys;
+    private final String[] names;
+    // start offset in keys of the names sorted by key length, used to limit fuzzy matching to similar lengths
+    private final int[] byLength;
+    private final int[] lengthStart;
+    // character set of each key in byLength order, an edit adds or removes at most two characters of the set
+    private final long[] signatures;
+
+    /**
+     * @param names the location names to suggest from
+     */
+    NameSuggester(String[] names) {
+        Integer[] order = new Integer[names.length];
+        String[] normalized = new String[names.length];
+        for (int i = 0; i < names.length; i++) {
+            order[i] = i;
+            normalized[i] = normalize(names[i]);
+        }
+        Arrays.sort(order, Comparator.comparing((Integer i) -> normalized[i]).thenComparing(i -> names[i]));
+
+        this.keys = new String[names.length];
+        this.names = new String[names.length];
+        int maxLength = 0;
+        for (int i = 0; i < order.length; i++) {
+            keys[i] = normalized[order[i]];
+            this.names[i] = names[order[i]];
+            maxLength = Math.max(maxLength, keys[i].length());
+        }
+
+        // counting sort of the key positions by key length
+        this.lengthStart = new int[maxLength + 2];
+        for (String key : keys) {
+            lengthStart[key.length() + 1]++;
+        }
+        for (int length = 1; length < lengthStart.length; length++) {
+            lengthStart[length] += lengthStart[length - 1];
+        }
+        this.byLength = new int[keys.length];
+        int[] next = Arrays.copyOf(lengthStart, lengthStart.length);
+        for (int i = 0; i < keys.length; i++) {
+            byLength[next[keys[i].length()]++] = i;
+        }
+        this.signatures = new long[keys.length];
+        for (int position = 0; position < byLength.length; position++) {
+            signatures[position] = signature(keys[byLength[position]]);
+        }
+    }
+
+
+    /**
+     * Returns the names starting with the given prefix, in alphabetical order.
+     *
+     * @param prefix the prefix typed so far
+     * @param limit  the maximum number of names to return
+     * @return the matching names
+     */
+    List<String> prefix(String prefix, int limit) {
+        String key = normalize(prefix);
+        if (key.isEmpty()) {
+            return List.of();
+        }
+        int index = lowerBound(key);
+        List<String> result = new ArrayList<>(Math.min(limit, 16));
+        while (index < keys.length && result.size() < limit && keys[index].startsWith(key)) {
+            result.add(names[index++]);
+        }
+        return result;
+    }
+
+    /**
+     * Returns the names within a small edit distance of the given name, closest first.
+     * Up to one edit is tolerated for names of four characters or less, two edits otherwise.
+     *
+     * @param name  the name that could not be found
+     * @param limit the maximum number of names to return
+     * @return the similar names
+     */
+    List<String> similar(String name, int limit) {
+        String key = normalize(name);
+        if (key.isEmpty()) {
+            return List.of();
+        }
+        int maxDistance = key.length() <= 4 ? 1 : 2;
+
+        List<int[]> matches = new ArrayList<>();
+        int fromLength = Math.max(0, key.length() - maxDistance);
+        int toLength = Math.min(lengthStart.length - 2, key.length() + maxDistance);
+        if (fromLength <= toLength) {
+            long keySignature = signature(key);
+            int[] previous = new int[key.length() + 1];
+            int[] current = new int[key.length() + 1];
+            int[] beforePrevious = new int[key.length() + 1];
+            for (int position = lengthStart[fromLength]; position < lengthStart[toLength + 1]; position++) {
+                if (Long.bitCount(signatures[position] ^ keySignature) > 2 * maxDistance) {
+                    continue;
+                }
+                int index = byLength[position];
+                int distance = distance(key, keys[index], maxDistance, beforePrevious, previous, current);
+                if (distance <= maxDistance) {
+                    matches.add(new int[]{distance, index});
+                }
+            }
+        }
+
+        matches.sort(Comparator.<int[]>comparingInt(match -> match[0]).thenComparingInt(match -> match[1]));
+        List<String> result = new ArrayList<>(Math.min(limit, matches.size()));
+        for (int i = 0; i < matches.size() && result.size() < limit; i++) {
+            result.add(names[matches.get(i)[1]]);
+        }
+        return result;
+    }
+
+    private int lowerBound(String key) {
+        int low = 0;
+        int high = keys.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (keys[mid].compareTo(key) < 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Optimal string alignment distance (Damerau-Levenshtein with adjacent transpositions),
+     * abandoned as soon as every cell of a row exceeds maxDistance.
+     *
+     * @return the distance, or maxDistance + 1 if it is larger than maxDistance
+     */
+    private static int distance(String a, String b, int maxDistance, int[] beforePrevious, int[] previous, int[] current) {
+        for (int i = 0; i <= a.length(); i++) {
+            previous[i] = i;
+        }
+        for (int j = 1; j <= b.length(); j++) {
+            current[0] = j;
+            int rowMinimum = j;
+            for (int i = 1; i <= a.length(); i++) {
+                int cost = a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1;
+                int value = Math.min(Math.min(previous[i] + 1, current[i - 1] + 1), previous[i - 1] + cost);
+                if (i > 1 && j > 1 && a.charAt(i - 1) == b.charAt(j - 2) && a.charAt(i - 2) == b.charAt(j - 1)) {
+                    value = Math.min(value, beforePrevious[i - 2] + 1);
+                }
+                current[i] = value;
+                rowMinimum = Math.min(rowMinimum, value);
+            }
+            if (rowMinimum > maxDistance) {
+                return maxDistance + 1;
+            }
+            int[] recycled = beforePrevious;
+            beforePrevious = previous;
+            previous = current;
+            current = recycled;
+        }
+        return previous[a.length()];
+    }
+
+    /**
+     * One bit per character present in the key, letters and digits get their own bit and the rest share the others.
+     * A substitution flips at most two bits, an insertion or a deletion one and a transposition none,
+     * so keys more than 2 * maxDistance bits apart cannot be within maxDistance edits.
+     */
+    private static long signature(String key) {
+        long signature = 0;
+        for (int i = 0; i < key.length(); i++) {
+            char c = key.charAt(i);
+            int bit;
+            if (c >= 'a' && c <= 'z') {
+                bit = c - 'a';
+            } else if (c >= '0' && c <= '9') {
+                bit = 26 + c - '0';
+            } else {
+                bit = 36 + c % 28;
+            }
+            signature |= 1L << bit;
+        }
+        return signature;
+    }
+
+    static String normalize(String name) {
+        String decomposed = Normalizer.normalize(name.replace('_', ' ').trim(), Normalizer.Form.NFD);
+        return DIACRITICS.matcher(decomposed).replaceAll("").toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,44 @@
+package com.raphael.WeatherAPI.service;
+
+import com.raphael.WeatherAPI.model.Location;
+import com.raphael.WeatherAPI.model.response.CurrentWeatherResponse;
+import com.raphael.WeatherAPI.model.response.WeatherForecastResponse;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+
+/**
+ * Calls the OpenWeatherMap endpoints. The implementation is selected with {@code openweathermap.client.mode}:
+ * {@code blocking} uses the RestTemplate on the calling thread, {@code reactive} uses a non-blocking WebClient.
+ */
+public interface OpenWeatherMapClient {
+
+    /**
+     * Fetches the current weather at the given coordinates.
+     *
+     * @param coordinates the coordinates of the location
+     * @return a future completed with the decoded response, or completed exceptionally if the call failed
+     */
+    CompletableFuture<CurrentWeatherResponse> fetchCurrentWeather(Location.Coordinates coordinates);
+
+    /**
+     * Fetches the current weather of several cities in a single call.
+     *
+     * @param cityIds the OpenWeatherMap ids of the cities
+     * @return a future completed with the decoded responses by city id, or completed exceptionally if the call failed
+     */
+    CompletableFuture<Map<Long, CurrentWeatherResponse>> fetchCurrentWeatherGroup(List<Long> cityIds);
+
+    /**
+     * Fetches the forecast at the given coordinates, mapping entries until the limit is reached.
+     *
+     * @param coordinates the coordinates of the location
+     * @param mapper      maps a decoded entry, returning null for entries that should be skipped
+     * @param limit       the maximum number of mapped entries to collect
+     * @param <T>         the type entries are mapped to
+     * @return a future completed with the mapped entries, or completed exceptionally if the call failed
+     */
+    <T> CompletableFuture<List<T>> fetchWeatherForecast(Location.Coordinates coordinates, Function<WeatherForecastResponse, T> mapper, int limit);
+}
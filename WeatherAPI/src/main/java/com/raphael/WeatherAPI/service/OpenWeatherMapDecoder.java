@@ -0,0 +1,378 @@
+package com.raphael.WeatherAPI.service;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.async.ByteArrayFeeder;
+import com.fasterxml.jackson.core.io.JsonEOFException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.util.TokenBuffer;
+import com.raphael.WeatherAPI.model.response.CurrentWeatherResponse;
+import com.raphael.WeatherAPI.model.response.MainResponse;
+import com.raphael.WeatherAPI.model.response.WeatherConditionResponse;
+import com.raphael.WeatherAPI.model.response.WeatherForecastResponse;
+import com.raphael.WeatherAPI.model.response.WindResponse;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Decodes OpenWeatherMap responses straight from the response stream, reading only the fields the service maps
+ * and skipping everything else without building an intermediate tree.
+ */
+@Component
+public class OpenWeatherMapDecoder {
+
+    private final JsonFactory jsonFactory;
+
+    public OpenWeatherMapDecoder(ObjectMapper objectMapper) {
+        this.jsonFactory = objectMapper.getFactory();
+    }
+
+
+    /**
+     * Decodes a current weather response body.
+     *
+     * @param body the response body of the weather endpoint
+     * @return the decoded current weather response
+     * @throws IOException if the body cannot be read or is not a JSON object
+     */
+    public CurrentWeatherResponse decodeCurrentWeather(InputStream body) throws IOException {
+        try (JsonParser parser = jsonFactory.createParser(body)) {
+            expectObject(parser, parser.nextToken());
+            return readCurrentWeather(parser).response();
+        }
+    }
+
+    /**
+     * Decodes a group response body, which lists the current weather of several cities.
+     *
+     * @param body the response body of the group endpoint
+     * @return the decoded current weather responses by OpenWeatherMap city id
+     * @throws IOException if the body cannot be read or is not a JSON object
+     */
+    public Map<Long, CurrentWeatherResponse> decodeCurrentWeatherGroup(InputStream body) throws IOException {
+        Map<Long, CurrentWeatherResponse> results = new HashMap<>();
+
+        try (JsonParser parser = jsonFactory.createParser(body)) {
+            expectObject(parser, parser.nextToken());
+
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                JsonToken value = parser.nextToken();
+
+                if (!"list".equals(field) || value != JsonToken.START_ARRAY) {
+                    parser.skipChildren();
+                    continue;
+                }
+
+                while (parser.nextToken() != JsonToken.END_ARRAY) {
+                    if (parser.currentToken() != JsonToken.START_OBJECT) {
+                        parser.skipChildren();
+                        continue;
+                    }
+                    CityWeather cityWeather = readCurrentWeather(parser);
+                    results.put(cityWeather.cityId(), cityWeather.response());
+                }
+            }
+        }
+        return results;
+    }
+
+    /**
+     * Decodes the entries of a forecast response body one at a time, and stops reading the body as soon as
+     * the limit of mapped entries has been reached.
+     *
+     * @param body   the response body of the forecast endpoint
+     * @param mapper maps a decoded entry, returning null for entries that should be skipped
+     * @param limit  the maximum number of mapped entries to collect
+     * @param <T>    the type entries are mapped to
+     * @return the mapped entries, in the order they appear in the response
+     * @throws IOException if the body cannot be read or is not a JSON object
+     */
+    public <T> List<T> decodeForecast(InputStream body, Function<WeatherForecastResponse, T> mapper, int limit) throws IOException {
+        List<T> results = new ArrayList<>(limit);
+
+        try (JsonParser parser = jsonFactory.createParser(body)) {
+            expectObject(parser, parser.nextToken());
+
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                JsonToken value = parser.nextToken();
+
+                if (!"list".equals(field) || value != JsonToken.START_ARRAY) {
+                    parser.skipChildren();
+                    continue;
+                }
+
+                while (parser.nextToken() != JsonToken.END_ARRAY) {
+                    if (parser.currentToken() != JsonToken.START_OBJECT) {
+                        parser.skipChildren();
+                        continue;
+                    }
+                    T mapped = mapper.apply(readForecastEntry(parser));
+
+                    if (mapped != null) {
+                        results.add(mapped);
+
+                        if (results.size() == limit) {
+                            return results;
+                        }
+                    }
+                }
+            }
+        }
+        return results;
+    }
+
+    /**
+     * Starts decoding a forecast response body that arrives in chunks, without blocking while waiting for the next one.
+     * Entries are decoded and mapped as soon as their last byte has been fed, and the feed reports when the limit
+     * of mapped entries has been reached so the rest of the body does not need to be read.
+     *
+     * @param mapper maps a decoded entry, returning null for entries that should be skipped
+     * @param limit  the maximum number of mapped entries to collect
+     * @param <T>    the type entries are mapped to
+     * @return a feed to pass the body chunks to
+     * @throws IOException if the parser cannot be created
+     */
+    public <T> ForecastFeed<T> newForecastFeed(Function<WeatherForecastResponse, T> mapper, int limit) throws IOException {
+        return new ForecastFeed<>(jsonFactory.createNonBlockingByteArrayParser(), mapper, limit);
+    }
+
+    private CityWeather readCurrentWeather(JsonParser parser) throws IOException {
+        long cityId = 0;
+        MainResponse main = null;
+        WindResponse wind = null;
+        List<WeatherConditionResponse> weather = List.of();
+
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            parser.nextToken();
+            switch (field) {
+                case "id" -> cityId = parser.getLongValue();
+                case "main" -> main = readMain(parser);
+                case "wind" -> wind = readWind(parser);
+                case "weather" -> weather = readWeather(parser);
+                default -> parser.skipChildren();
+            }
+        }
+        return new CityWeather(cityId, new CurrentWeatherResponse(main, wind, weather));
+    }
+
+    private WeatherForecastResponse readForecastEntry(JsonParser parser) throws IOException {
+        long date = 0;
+        MainResponse main = null;
+        WindResponse wind = null;
+        List<WeatherConditionResponse> weather = List.of();
+
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            parser.nextToken();
+            switch (field) {
+                case "dt" -> date = parser.getLongValue();
+                case "main" -> main = readMain(parser);
+                case "wind" -> wind = readWind(parser);
+                case "weather" -> weather = readWeather(parser);
+                default -> parser.skipChildren();
+            }
+        }
+        return new WeatherForecastResponse(date, main, wind, weather);
+    }
+
+    private MainResponse readMain(JsonParser parser) throws IOException {
+        if (parser.currentToken() != JsonToken.START_OBJECT) {
+            parser.skipChildren();
+            return null;
+        }
+
+        double temp = 0;
+        int humidity = 0;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            parser.nextToken();
+            switch (field) {
+                case "temp" -> temp = parser.getDoubleValue();
+                case "humidity" -> humidity = parser.getIntValue();
+                default -> parser.skipChildren();
+            }
+        }
+        return new MainResponse(temp, humidity);
+    }
+
+    private WindResponse readWind(JsonParser parser) throws IOException {
+        if (parser.currentToken() != JsonToken.START_OBJECT) {
+            parser.skipChildren();
+            return null;
+        }
+
+        double speed = 0;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            parser.nextToken();
+            if ("speed".equals(field)) {
+                speed = parser.getDoubleValue();
+            } else {
+                parser.skipChildren();
+            }
+        }
+        return new WindResponse(speed);
+    }
+
+    /**
+     * Reads the id and description of the first weather condition, the remaining conditions are skipped.
+     */
+    private List<WeatherConditionResponse> readWeather(JsonParser parser) throws IOException {
+        if (parser.currentToken() != JsonToken.START_ARRAY) {
+            parser.skipChildren();
+            return List.of();
+        }
+
+        WeatherConditionResponse condition = null;
+        while (parser.nextToken() != JsonToken.END_ARRAY) {
+            if (condition != null || parser.currentToken() != JsonToken.START_OBJECT) {
+                parser.skipChildren();
+                continue;
+            }
+
+            int id = 0;
+            String description = null;
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                parser.nextToken();
+                switch (field) {
+                    case "id" -> id = parser.getIntValue();
+                    case "description" -> description = parser.getText();
+                    default -> parser.skipChildren();
+                }
+            }
+            condition = new WeatherConditionResponse(id, description);
+        }
+        return condition != null ? List.of(condition) : List.of();
+    }
+
+    private void expectObject(JsonParser parser, JsonToken token) throws JsonParseException {
+        if (token != JsonToken.START_OBJECT) {
+            throw new JsonParseException(parser, "Expected a JSON object but found " + token);
+        }
+    }
+
+    private record CityWeather(long cityId, CurrentWeatherResponse response) {}
+
+    /**
+     * A forecast body decoded chunk by chunk. The tokens of each entry are buffered until the entry is complete,
+     * then read like a blocking body. Chunks must be fed one at a time.
+     *
+     * @param <T> the type entries are mapped to
+     */
+    public final class ForecastFeed<T> {
+
+        private final JsonParser parser;
+        private final Function<WeatherForecastResponse, T> mapper;
+        private final int limit;
+        private final List<T> results;
+
+        private int depth;
+        private String field;
+        private boolean inList;
+        private TokenBuffer entry;
+        private boolean done;
+
+        private ForecastFeed(JsonParser parser, Function<WeatherForecastResponse, T> mapper, int limit) {
+            this.parser = parser;
+            this.mapper = mapper;
+            this.limit = limit;
+            this.results = new ArrayList<>(limit);
+        }
+
+        /**
+         * Decodes the next chunk of the body.
+         *
+         * @param chunk the next bytes of the body
+         * @return true once no more of the body is needed, because the limit has been reached or the body is complete
+         * @throws IOException if the body is not a JSON object
+         */
+        public boolean feed(byte[] chunk) throws IOException {
+            if (!done) {
+                ((ByteArrayFeeder) parser.getNonBlockingInputFeeder()).feedInput(chunk, 0, chunk.length);
+                readAvailableTokens();
+            }
+            return done;
+        }
+
+        /**
+         * Ends the decode, once the body has been fed or {@link #feed} has returned true.
+         *
+         * @return the mapped entries, in the order they appear in the response
+         * @throws IOException if the body ended before the forecast was complete
+         */
+        public List<T> finish() throws IOException {
+            try (parser) {
+                if (!done) {
+                    ((ByteArrayFeeder) parser.getNonBlockingInputFeeder()).endOfInput();
+                    readAvailableTokens();
+                }
+                if (!done) {
+                    throw new JsonEOFException(parser, null, "Unexpected end of the forecast body");
+                }
+            }
+            return results;
+        }
+
+        private void readAvailableTokens() throws IOException {
+            JsonToken token;
+            while (!done && (token = parser.nextToken()) != null && token != JsonToken.NOT_AVAILABLE) {
+                readToken(token);
+            }
+        }
+
+        private void readToken(JsonToken token) throws IOException {
+            if (depth == 0) {
+                expectObject(parser, token);
+            }
+            if (depth == 1 && token == JsonToken.FIELD_NAME) {
+                field = parser.currentName();
+            }
+            if (inList && depth == 2 && token == JsonToken.START_OBJECT) {
+                entry = new TokenBuffer(parser);
+            }
+            if (entry != null) {
+                entry.copyCurrentEvent(parser);
+            }
+
+            if (token.isStructStart()) {
+                inList |= depth == 1 && token == JsonToken.START_ARRAY && "list".equals(field);
+                depth++;
+            } else if (token.isStructEnd()) {
+                depth--;
+                inList &= depth > 1;
+                if (entry != null && depth == 2) {
+                    readEntry();
+                }
+                done |= depth == 0;
+            }
+        }
+
+        private void readEntry() throws IOException {
+            T mapped;
+            try (JsonParser entryParser = entry.asParser()) {
+                entryParser.nextToken();
+                mapped = mapper.apply(readForecastEntry(entryParser));
+            } finally {
+                entry = null;
+            }
+
+            if (mapped != null) {
+                results.add(mapped);
+                done = results.size() == limit;
+            }
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package com.raphael.WeatherAPI.service;
+
+import com.raphael.WeatherAPI.model.Location;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.StringJoiner;
+
+@Component
+public class OpenWeatherMapUris {
+
+    private final String baseUrl;
+    private final String apiKey;
+
+    public OpenWeatherMapUris(@Value("${openweathermap.base-url:https://api.openweathermap.org/data/2.5}") String baseUrl,
+                              @Value("${openweathermap.api-key:INSERT_KEY_FROM_EMAIL_HERE}") String apiKey) {
+        this.baseUrl = baseUrl;
+        this.apiKey = apiKey;
+    }
+
+
+    /**
+     * @param coordinates the coordinates of the location
+     * @return the current weather URI for the given coordinates
+     */
+    public String currentWeather(Location.Coordinates coordinates) {
+        return byCoordinates("/weather", coordinates);
+    }
+
+    /**
+     * @param coordinates the coordinates of the location
+     * @return the forecast URI for the given coordinates
+     */
+    public String forecast(Location.Coordinates coordinates) {
+        return byCoordinates("/forecast", coordinates);
+    }
+
+    /**
+     * @param cityIds the OpenWeatherMap ids of the cities
+     * @return the group URI returning the current weather of all given cities
+     */
+    public String currentWeatherGroup(List<Long> cityIds) {
+        StringJoiner ids = new StringJoiner(",");
+        cityIds.forEach(cityId -> ids.add(String.valueOf(cityId)));
+        return baseUrl + "/group?id=" + ids + "&appid=" + apiKey;
+    }
+
+    private String byCoordinates(String endpoint, Location.Coordinates coordinates) {
+        return baseUrl + endpoint + "?lat=" + coordinates.latitude() + "&lon=" + coordinates.longitude() + "&appid=" + apiKey;
+    }
+}
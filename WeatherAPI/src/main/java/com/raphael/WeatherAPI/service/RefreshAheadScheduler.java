@@ -0,0 +1,180 @@
+package com.raphael.WeatherAPI.service;
+
+import com.raphael.WeatherAPI.model.CurrentWeather;
+import com.raphael.WeatherAPI.model.Timestamped;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Refreshes the current weather of the most requested cities shortly before their cache entry expires,
+ * so hot cities are always answered from the cache.
+ * A scan picks the top cities by recent lookups and queues those expiring within the lead time, the queue is
+ * drained at a fixed rate so refreshes never burst against the upstream rate limit. The scheduler thread only
+ * paces the refreshes, they run on the task executor since the upstream call may block.
+ */
+@Component
+public class RefreshAheadScheduler implements MeterBinder {
+
+    private static final Logger logger = LoggerFactory.getLogger(RefreshAheadScheduler.class);
+
+    private final WeatherService weatherService;
+    private final WeatherCache weatherCache;
+    private final CityAccessTracker accessTracker;
+    private final Executor refreshExecutor;
+    private final int topCities;
+    private final Duration lead;
+    private final ScheduledExecutorService scheduler;
+    private final Queue<String> queue = new ConcurrentLinkedQueue<>();
+    private final Set<String> queued = ConcurrentHashMap.newKeySet();
+    private final AtomicLong refreshes = new AtomicLong();
+    private volatile Timer refreshLatency;
+
+    public RefreshAheadScheduler(WeatherService weatherService, WeatherCache weatherCache, CityAccessTracker accessTracker,
+                                 @Qualifier("applicationTaskExecutor") Executor refreshExecutor,
+                                 @Value("${weather.refresh-ahead.enabled:true}") boolean enabled,
+                                 @Value("${weather.refresh-ahead.top-cities:100}") int topCities,
+                                 @Value("${weather.refresh-ahead.lead:2m}") Duration lead,
+                                 @Value("${weather.refresh-ahead.scan-interval:30s}") Duration scanInterval,
+                                 @Value("${weather.refresh-ahead.max-per-second:5}") double maxPerSecond) {
+        this.weatherService = weatherService;
+        this.weatherCache = weatherCache;
+        this.accessTracker = accessTracker;
+        this.refreshExecutor = refreshExecutor;
+        this.topCities = topCities;
+        this.lead = lead;
+        this.scheduler = enabled ? Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "weather-refresh-ahead");
+            thread.setDaemon(true);
+            return thread;
+        }) : null;
+        if (scheduler != null) {
+            long scanMillis = scanInterval.toMillis();
+            long refreshNanos = (long) (TimeUnit.SECONDS.toNanos(1) / maxPerSecond);
+            scheduler.scheduleWithFixedDelay(this::scan, scanMillis, scanMillis, TimeUnit.MILLISECONDS);
+            scheduler.scheduleAtFixedRate(this::refreshNext, refreshNanos, refreshNanos, TimeUnit.NANOSECONDS);
+        }
+    }
+
+
+    /**
+     * Queues the hot cities whose cached current weather expires within the lead time, then ages the access counts.
+     */
+    public void scan() {
+        try {
+            Instant refreshBefore = Instant.now().plus(lead);
+            Duration ttl = weatherCache.currentTtl();
+            for (String cityName : accessTracker.hottest(topCities)) {
+                Optional<Timestamped<CurrentWeather>> cached = weatherCache.peekCurrentWeather(cityName);
+                // expired entries are left to the next lookup, the city may no longer be wanted
+                if (cached.isPresent() && cached.get().fetchedAt().plus(ttl).isBefore(refreshBefore) && queued.add(cityName)) {
+                    queue.add(cityName);
+                }
+            }
+            accessTracker.decay();
+        } catch (RuntimeException e) {
+            logger.error("Error occurred while scanning for cities to refresh: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Hands the next queued city to the task executor for a refresh, called at the configured rate.
+     */
+    public void refreshNext() {
+        String cityName = queue.poll();
+        if (cityName == null) {
+            return;
+        }
+        try {
+            refreshExecutor.execute(() -> refresh(cityName));
+        } catch (RejectedExecutionException e) {
+            // the next scan queues the city again if it is still due
+            queued.remove(cityName);
+            logger.warn("Refresh of the current weather of {} rejected: {}", cityName, e.getMessage());
+        }
+    }
+
+    private void refresh(String cityName) {
+        long start = System.nanoTime();
+        CompletableFuture<Boolean> refreshed;
+        try {
+            refreshed = weatherService.refreshCurrentWeather(cityName);
+        } catch (RuntimeException e) {
+            refreshed = CompletableFuture.failedFuture(e);
+        }
+        refreshed.whenComplete((replaced, error) -> {
+            queued.remove(cityName);
+            Timer timer = refreshLatency;
+            if (timer != null) {
+                timer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            }
+            if (error != null) {
+                logger.warn("Error occurred while refreshing the current weather of {}: {}", cityName, error.getMessage());
+            } else if (replaced) {
+                refreshes.incrementAndGet();
+            }
+        });
+    }
+
+    /**
+     * @return the number of cities waiting for a refresh
+     */
+    public int queueDepth() {
+        return queued.size();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+    }
+
+    /**
+     * Publishes the refresh queue depth, the refresh latency, and refreshes against cache misses caused by clients.
+     *
+     * @param registry the registry to bind the refresh metrics to
+     */
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("weather.refresh-ahead.queue", this, RefreshAheadScheduler::queueDepth)
+                .description("Hot cities waiting for a refresh")
+                .register(registry);
+        refreshLatency = Timer.builder("weather.refresh-ahead.latency")
+                .description("Time taken to refresh the current weather of a hot city")
+                .register(registry);
+        FunctionCounter.builder("weather.refresh-ahead.refreshes", refreshes, AtomicLong::get)
+                .description("Cache entries replaced ahead of expiry")
+                .register(registry);
+        // refreshes replace entries without a lookup, so the cache's miss count only holds lookups that waited for upstream
+        FunctionCounter.builder("weather.cache.organic-misses", weatherCache, WeatherCache::currentWeatherMisses)
+                .description("Current weather lookups that missed the cache and waited for upstream")
+                .register(registry);
+        Gauge.builder("weather.refresh-ahead.ratio", this, refresher -> (double) refresher.refreshes.get() / Math.max(1, weatherCache.currentWeatherMisses()))
+                .description("Refreshes ahead of expiry per organic cache miss")
+                .register(registry);
+    }
+}
@@ -0,0 +1,64 @@
+package com.raphael.WeatherAPI.service;
+
+import com.raphael.WeatherAPI.model.Location;
+import com.raphael.WeatherAPI.model.response.CurrentWeatherResponse;
+import com.raphael.WeatherAPI.model.response.WeatherForecastResponse;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpMethod;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestTemplate;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+
+/**
+ * Blocking client, the call runs on the calling thread and the returned future is already completed.
+ */
+@Component
+@ConditionalOnProperty(name = "openweathermap.client.mode", havingValue = "blocking", matchIfMissing = true)
+public class RestTemplateWeatherClient implements OpenWeatherMapClient {
+
+    private final RestTemplate restTemplate;
+    private final OpenWeatherMapDecoder weatherDecoder;
+    private final OpenWeatherMapUris uris;
+
+    public RestTemplateWeatherClient(RestTemplate restTemplate, OpenWeatherMapDecoder weatherDecoder, OpenWeatherMapUris uris) {
+        this.restTemplate = restTemplate;
+        this.weatherDecoder = weatherDecoder;
+        this.uris = uris;
+    }
+
+
+    @Override
+    public CompletableFuture<CurrentWeatherResponse> fetchCurrentWeather(Location.Coordinates coordinates) {
+        try {
+            return CompletableFuture.completedFuture(restTemplate.execute(uris.currentWeather(coordinates), HttpMethod.GET, null,
+                    response -> weatherDecoder.decodeCurrentWeather(response.getBody())));
+        } catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    @Override
+    public CompletableFuture<Map<Long, CurrentWeatherResponse>> fetchCurrentWeatherGroup(List<Long> cityIds) {
+        try {
+            return CompletableFuture.completedFuture(restTemplate.execute(uris.currentWeatherGroup(cityIds), HttpMethod.GET, null,
+                    response -> weatherDecoder.decodeCurrentWeatherGroup(response.getBody())));
+        } catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    @Override
+    public <T> CompletableFuture<List<T>> fetchWeatherForecast(Location.Coordinates coordinates, Function<WeatherForecastResponse, T> mapper, int limit) {
+        try {
+            // The body is decoded as it streams in, and reading stops once the limit has been collected
+            return CompletableFuture.completedFuture(restTemplate.execute(uris.forecast(coordinates), HttpMethod.GET, null,
+                    response -> weatherDecoder.decodeForecast(response.getBody(), mapper, limit)));
+        } catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+}
@@ -0,0 +1,258 @@
+package com.raphael.WeatherAPI.service;
+
+import com.raphael.WeatherAPI.model.CurrentWeather;
+import com.raphael.WeatherAPI.model.SharedWeatherEntry;
+import com.raphael.WeatherAPI.model.Timestamped;
+import com.raphael.WeatherAPI.model.WeatherForecast;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationStartedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * Optional second cache tier in the weather_cache collection, shared by all instances.
+ * A local miss reads the shared entry before going upstream, so a fleet fetches every city about once per ttl
+ * instead of once per instance. Writes are queued, a newer value for the same key replaces a queued one,
+ * and flushed as one unordered bulk upsert at a fixed interval or once the batch is full.
+ */
+@Component
+public class SharedWeatherCache implements MeterBinder {
+
+    private static final Logger logger = LoggerFactory.getLogger(SharedWeatherCache.class);
+
+    private final MongoTemplate mongoTemplate;
+    private final Executor executor;
+    private final boolean enabled;
+    private final int batchSize;
+    private final Duration retention;
+    private final ScheduledExecutorService scheduler;
+    private final Map<String, PendingWrite> pendingWrites = new ConcurrentHashMap<>();
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    public SharedWeatherCache(MongoTemplate mongoTemplate, @Qualifier("applicationTaskExecutor") Executor executor,
+                              @Value("${weather.shared-cache.enabled:false}") boolean enabled,
+                              @Value("${weather.shared-cache.flush-interval:1s}") Duration flushInterval,
+                              @Value("${weather.shared-cache.batch-size:500}") int batchSize,
+                              @Value("${weather.cache.forecast-ttl:30m}") Duration forecastTtl,
+                              @Value("${weather.cache.max-stale:1h}") Duration maxStale) {
+        this.mongoTemplate = mongoTemplate;
+        this.executor = executor;
+        this.enabled = enabled;
+        this.batchSize = batchSize;
+        // documents are kept as long as the longest lived local entry could still use them
+        this.retention = forecastTtl.plus(maxStale);
+        this.scheduler = enabled ? Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "weather-shared-cache-writer");
+            thread.setDaemon(true);
+            return thread;
+        }) : null;
+        if (scheduler != null) {
+            scheduler.scheduleWithFixedDelay(this::flush, flushInterval.toMillis(), flushInterval.toMillis(), TimeUnit.MILLISECONDS);
+        }
+    }
+
+
+    /**
+     * Creates the TTL index that lets Mongo remove expired entries.
+     */
+    @EventListener(ApplicationStartedEvent.class)
+    public void createIndexes() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            mongoTemplate.indexOps(SharedWeatherEntry.class)
+                    .ensureIndex(new Index().on("expiresAt", Sort.Direction.ASC).expire(Duration.ZERO));
+        } catch (RuntimeException e) {
+            logger.error("Error occurred while creating the weather_cache TTL index: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * @return true if the shared tier is used
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Reads the shared current weather of a city.
+     *
+     * @param cityName the formatted city name
+     * @param after    only entries fetched after this instant are returned
+     * @return a future completed with the shared entry, or empty if there is none recent enough or the tier is disabled
+     */
+    public CompletableFuture<Optional<Timestamped<CurrentWeather>>> getCurrentWeather(String cityName, Instant after) {
+        return read(cityName, after, "currentWeather", "currentFetchedAt",
+                entry -> entry.currentWeather() != null ? Timestamped.of(entry.currentWeather(), entry.currentFetchedAt()) : null);
+    }
+
+    /**
+     * Reads the shared weather forecast of a city.
+     *
+     * @param cityName the formatted city name
+     * @param after    only entries fetched after this instant are returned
+     * @return a future completed with the shared entry, or empty if there is none recent enough or the tier is disabled
+     */
+    public CompletableFuture<Optional<Timestamped<List<WeatherForecast>>>> getWeatherForecast(String cityName, Instant after) {
+        return read(cityName, after, "forecast", "forecastFetchedAt",
+                entry -> entry.forecast() != null ? Timestamped.of(List.copyOf(entry.forecast()), entry.forecastFetchedAt()) : null);
+    }
+
+    /**
+     * Queues the current weather of a city for the next write to the shared tier.
+     *
+     * @param cityName       the formatted city name
+     * @param currentWeather the fetched current weather
+     */
+    public void putCurrentWeather(String cityName, Timestamped<CurrentWeather> currentWeather) {
+        write(cityName, new PendingWrite(currentWeather, null));
+    }
+
+    /**
+     * Queues the weather forecast of a city for the next write to the shared tier.
+     *
+     * @param cityName the formatted city name
+     * @param forecast the fetched forecast
+     */
+    public void putWeatherForecast(String cityName, Timestamped<List<WeatherForecast>> forecast) {
+        write(cityName, new PendingWrite(null, forecast));
+    }
+
+    /**
+     * Writes the queued entries to Mongo.
+     */
+    public void flush() {
+        if (pendingWrites.isEmpty()) {
+            return;
+        }
+        try {
+            BulkOperations bulkOperations = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, SharedWeatherEntry.class);
+            int count = 0;
+            for (String cityName : pendingWrites.keySet()) {
+                PendingWrite pending = pendingWrites.remove(cityName);
+                if (pending != null) {
+                    bulkOperations.upsert(Query.query(Criteria.where("_id").is(cityName)), pending.toUpdate(retention));
+                    count++;
+                }
+            }
+            if (count > 0) {
+                bulkOperations.execute();
+            }
+        } catch (RuntimeException e) {
+            // the entries are lost for the other instances, they will be written again on the next fetch
+            logger.error("Error occurred while writing to the shared weather cache: {}", e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+            flush();
+        }
+    }
+
+    /**
+     * Publishes the hit and miss counters of the shared tier.
+     *
+     * @param registry the registry to bind the shared cache metrics to
+     */
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("weather.shared-cache.hits", hits, AtomicLong::get)
+                .description("Local cache misses answered from the shared weather cache")
+                .register(registry);
+        FunctionCounter.builder("weather.shared-cache.misses", misses, AtomicLong::get)
+                .description("Local cache misses the shared weather cache could not answer")
+                .register(registry);
+    }
+
+    private <T> CompletableFuture<Optional<Timestamped<T>>> read(String cityName, Instant after, String valueField, String fetchedAtField,
+                                                                Function<SharedWeatherEntry, Timestamped<T>> extract) {
+        if (!enabled) {
+            return CompletableFuture.completedFuture(Optional.empty());
+        }
+        return CompletableFuture.supplyAsync(() -> {
+            Query query = Query.query(Criteria.where("_id").is(cityName).and(fetchedAtField).gt(after));
+            query.fields().include(valueField, fetchedAtField);
+            Optional<Timestamped<T>> entry = Optional.ofNullable(mongoTemplate.findOne(query, SharedWeatherEntry.class)).map(extract);
+            (entry.isPresent() ? hits : misses).incrementAndGet();
+            return entry;
+        }, executor).exceptionally(e -> {
+            // the shared tier is an optimisation, upstream is still there when Mongo is not
+            logger.warn("Error occurred while reading the shared weather cache: {}", e.getMessage());
+            return Optional.empty();
+        });
+    }
+
+    private void write(String cityName, PendingWrite write) {
+        if (!enabled) {
+            return;
+        }
+        // one upsert per city, so the current weather and forecast of a new city cannot race to insert the document
+        pendingWrites.merge(cityName, write, PendingWrite::merge);
+        if (pendingWrites.size() >= batchSize) {
+            try {
+                scheduler.execute(this::flush);
+            } catch (RejectedExecutionException e) {
+                // shutting down, the queued entries are flushed by shutdown
+            }
+        }
+    }
+
+    /**
+     * The values of a city waiting to be written, a newer value replaces a queued one.
+     */
+    private record PendingWrite(Timestamped<CurrentWeather> currentWeather, Timestamped<List<WeatherForecast>> forecast) {
+
+        private PendingWrite merge(PendingWrite newer) {
+            return new PendingWrite(newer.currentWeather != null ? newer.currentWeather : currentWeather,
+                    newer.forecast != null ? newer.forecast : forecast);
+        }
+
+        private Update toUpdate(Duration retention) {
+            Update update = new Update();
+            Instant latest = Instant.EPOCH;
+            if (currentWeather != null) {
+                update.set("currentWeather", currentWeather.value()).set("currentFetchedAt", currentWeather.fetchedAt());
+                latest = currentWeather.fetchedAt();
+            }
+            if (forecast != null) {
+                update.set("forecast", forecast.value()).set("forecastFetchedAt", forecast.fetchedAt());
+                latest = forecast.fetchedAt().isAfter(latest) ? forecast.fetchedAt() : latest;
+            }
+            return update.max("expiresAt", latest.plus(retention));
+        }
+    }
+}
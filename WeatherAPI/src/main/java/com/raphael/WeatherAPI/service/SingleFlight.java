@@ -0,0 +1,76 @@
+package com.raphael.WeatherAPI.service;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntConsumer;
+import java.util.function.Supplier;
+
+/**
+ * Collapses concurrent calls for the same key into a single execution.
+ * The first caller for a key runs the fetch, every caller arriving while it is in flight waits for and shares its result.
+ *
+ * @param <K> the key type
+ * @param <V> the result type
+ */
+public class SingleFlight<K, V> {
+
+    private final ConcurrentMap<K, Flight<V>> flights = new ConcurrentHashMap<>();
+    private final IntConsumer callersPerFetchListener;
+
+    /**
+     * @param callersPerFetchListener notified with the number of callers served once a fetch has completed
+     */
+    public SingleFlight(IntConsumer callersPerFetchListener) {
+        this.callersPerFetchListener = callersPerFetchListener;
+    }
+
+    /**
+     * Runs the fetch for the given key, or joins the fetch already in flight for it.
+     *
+     * @param key   the key identifying the fetch
+     * @param fetch the fetch to run when no other caller is fetching the key
+     * @return a future completed with the result of the shared fetch
+     */
+    public CompletableFuture<V> execute(K key, Supplier<CompletableFuture<V>> fetch) {
+        Flight<V> flight = new Flight<>();
+        Flight<V> inFlight = flights.putIfAbsent(key, flight);
+
+        if (inFlight != null) {
+            inFlight.callers.incrementAndGet();
+            return inFlight.result.copy();
+        }
+
+        CompletableFuture<V> fetched;
+        try {
+            fetched = fetch.get();
+        } catch (RuntimeException e) {
+            fetched = CompletableFuture.failedFuture(e);
+        }
+
+        fetched.whenComplete((value, error) -> {
+            if (error != null) {
+                flight.result.completeExceptionally(error);
+            } else {
+                flight.result.complete(value);
+            }
+            // removed only after completion, so callers arriving in between still get the finished result
+            flights.remove(key, flight);
+            callersPerFetchListener.accept(flight.callers.get());
+        });
+        return flight.result.copy();
+    }
+
+    /**
+     * @return the number of keys currently being fetched
+     */
+    public int inFlight() {
+        return flights.size();
+    }
+
+    private static final class Flight<V> {
+        private final CompletableFuture<V> result = new CompletableFuture<>();
+        private final AtomicInteger callers = new AtomicInteger(1);
+    }
+}
@@ -0,0 +1,119 @@
+package com.raphael.WeatherAPI.service;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Stops calling OpenWeatherMap after a run of consecutive failures.
+ * Once open, calls are rejected without going upstream until the open duration has passed,
+ * then a single trial call is let through: success closes the circuit, failure opens it again.
+ * While the circuit is open, lookups are answered from stale cache entries where available.
+ */
+@Component
+public class UpstreamCircuitBreaker implements MeterBinder {
+
+    private static final Logger logger = LoggerFactory.getLogger(UpstreamCircuitBreaker.class);
+
+    public enum State { CLOSED, OPEN, HALF_OPEN }
+
+    private final int failureThreshold;
+    private final Duration openDuration;
+    private final AtomicLong rejected = new AtomicLong();
+
+    // guarded by this
+    private State state = State.CLOSED;
+    private int consecutiveFailures;
+    private Instant openedAt;
+    private boolean trialInFlight;
+
+    public UpstreamCircuitBreaker(@Value("${openweathermap.circuit-breaker.failure-threshold:5}") int failureThreshold,
+                                  @Value("${openweathermap.circuit-breaker.open-duration:30s}") Duration openDuration) {
+        this.failureThreshold = failureThreshold;
+        this.openDuration = openDuration;
+    }
+
+
+    /**
+     * Asks for permission to call upstream. Every permitted call must be followed by onSuccess or onFailure.
+     *
+     * @return true if the call may go ahead, false if it should fail fast
+     */
+    public synchronized boolean tryAcquire() {
+        if (state == State.OPEN && !Instant.now().isBefore(openedAt.plus(openDuration))) {
+            state = State.HALF_OPEN;
+            trialInFlight = false;
+        }
+        boolean permitted = switch (state) {
+            case CLOSED -> true;
+            case OPEN -> false;
+            case HALF_OPEN -> {
+                // a single trial call decides whether the circuit closes again
+                boolean trial = !trialInFlight;
+                trialInFlight = true;
+                yield trial;
+            }
+        };
+        if (!permitted) {
+            rejected.incrementAndGet();
+        }
+        return permitted;
+    }
+
+    /**
+     * Records a successful upstream call.
+     */
+    public synchronized void onSuccess() {
+        if (state != State.CLOSED) {
+            logger.info("OpenWeatherMap recovered, closing the circuit");
+        }
+        state = State.CLOSED;
+        consecutiveFailures = 0;
+        trialInFlight = false;
+    }
+
+    /**
+     * Records a failed upstream call.
+     */
+    public synchronized void onFailure() {
+        consecutiveFailures++;
+        // calls started before the circuit opened do not extend the open period
+        if (state != State.OPEN && (state == State.HALF_OPEN || consecutiveFailures >= failureThreshold)) {
+            logger.warn("OpenWeatherMap failed {} times in a row, opening the circuit for {}", consecutiveFailures, openDuration);
+            state = State.OPEN;
+            openedAt = Instant.now();
+            trialInFlight = false;
+        }
+    }
+
+    /**
+     * @return the current state of the circuit
+     */
+    public synchronized State state() {
+        return state;
+    }
+
+    /**
+     * Publishes the circuit state (0 closed, 1 open, 2 half open) and the number of calls rejected while open.
+     *
+     * @param registry the registry to bind the circuit breaker metrics to
+     */
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("weather.upstream.circuit.state", this, breaker -> breaker.state().ordinal())
+                .description("State of the OpenWeatherMap circuit breaker: 0 closed, 1 open, 2 half open")
+                .register(registry);
+        FunctionCounter.builder("weather.upstream.circuit.rejected", rejected, AtomicLong::get)
+                .description("Upstream calls rejected while the circuit was open")
+                .register(registry);
+    }
+}
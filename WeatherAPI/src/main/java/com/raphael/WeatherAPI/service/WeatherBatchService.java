@@ -0,0 +1,87 @@
+package com.raphael.WeatherAPI.service;
+
+import com.raphael.WeatherAPI.model.CityWeatherResult;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+@Service
+public class WeatherBatchService {
+
+    private final WeatherService weatherService;
+    private final LocationIndex locationIndex;
+    private final Executor executor;
+    private final int maxConcurrency;
+
+    public WeatherBatchService(WeatherService weatherService, LocationIndex locationIndex,
+                               @Qualifier("applicationTaskExecutor") Executor executor,
+                               @Value("${weather.batch.max-concurrency:10}") int maxConcurrency) {
+        this.weatherService = weatherService;
+        this.locationIndex = locationIndex;
+        this.executor = executor;
+        this.maxConcurrency = maxConcurrency;
+    }
+
+
+    /**
+     * Retrieves the current weather for several cities at once.
+     * Names are formatted and de-duplicated, unknown cities are rejected from the in-memory index without any
+     * upstream call, and the remaining cities are fetched in parallel with at most maxConcurrency fetches
+     * outstanding. Cached cities are answered from the cache.
+     *
+     * @param inputs the requested city names
+     * @return a future completed with one result per distinct city, in request order, each holding either
+     * the current weather or the reason it is not available
+     */
+    public CompletableFuture<List<CityWeatherResult>> getCurrentWeather(List<String> inputs) {
+        if (!locationIndex.isReady()) {
+            return CompletableFuture.failedFuture(new LocationIndexNotReadyException());
+        }
+
+        Set<String> cityNames = new LinkedHashSet<>();
+        for (String input : inputs) {
+            if (input != null && !input.isBlank()) {
+                cityNames.add(WeatherService.formatLocationString(input.trim()));
+            }
+        }
+
+        List<String> known = new ArrayList<>(cityNames.size());
+        for (String cityName : cityNames) {
+            if (locationIndex.find(cityName).isPresent()) {
+                known.add(cityName);
+            }
+        }
+
+        return BoundedFanOut.map(known, maxConcurrency, executor, cityName -> weatherService.getCurrentWeatherAsync(cityName)
+                        .handle((currentWeather, error) -> error == null && currentWeather.isPresent()
+                                ? CityWeatherResult.of(cityName, currentWeather.get())
+                                : CityWeatherResult.error(cityName, "Weather information not available for the specified location")))
+                .thenApply(fetched -> {
+                    List<CityWeatherResult> results = new ArrayList<>(cityNames.size());
+                    int next = 0;
+                    for (String cityName : cityNames) {
+                        if (next < fetched.size() && fetched.get(next).location().equals(cityName)) {
+                            results.add(fetched.get(next++));
+                        } else {
+                            results.add(CityWeatherResult.error(cityName, unknownLocationMessage(cityName)));
+                        }
+                    }
+                    return results;
+                });
+    }
+
+    private String unknownLocationMessage(String cityName) {
+        List<String> suggestions = locationIndex.similar(cityName, 3);
+        if (suggestions.isEmpty()) {
+            return "Unknown location";
+        }
+        return "Unknown location, did you mean: " + String.join(", ", suggestions) + "?";
+    }
+}
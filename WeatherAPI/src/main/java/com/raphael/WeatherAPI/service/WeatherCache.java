@@ -0,0 +1,282 @@
+package com.raphael.WeatherAPI.service;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.raphael.WeatherAPI.model.CurrentWeather;
+import com.raphael.WeatherAPI.model.Timestamped;
+import com.raphael.WeatherAPI.model.WeatherForecast;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+/**
+ * Caches current weather and forecasts per city.
+ * A local miss is answered from the shared cache tier when it holds a fresh entry, otherwise the loader goes
+ * upstream and the fetched value is handed to the shared tier for the other instances.
+ * An entry is fresh for its ttl. After that it is kept for up to maxStale more: a lookup gets the stale entry
+ * right away while a single background revalidation fetches a new value (stale-while-revalidate), and if that
+ * fails the stale entry keeps being served until it is maxStale past its ttl (stale-if-error).
+ */
+@Component
+public class WeatherCache implements MeterBinder {
+
+    private static final Logger logger = LoggerFactory.getLogger(WeatherCache.class);
+
+    private final SharedWeatherCache sharedCache;
+    private final boolean enabled;
+    private final Duration currentTtl;
+    private final Duration forecastTtl;
+    private final AsyncCache<String, Timestamped<CurrentWeather>> currentWeatherCache;
+    private final AsyncCache<String, Timestamped<List<WeatherForecast>>> forecastCache;
+    // keys with a background revalidation in flight, prefixed by cache so both caches can share the set
+    private final Set<String> revalidating = ConcurrentHashMap.newKeySet();
+    private final AtomicLong staleServed = new AtomicLong();
+
+    public WeatherCache(SharedWeatherCache sharedCache,
+                        @Value("${weather.cache.enabled:true}") boolean enabled,
+                        @Value("${weather.cache.current-ttl:10m}") Duration currentTtl,
+                        @Value("${weather.cache.forecast-ttl:30m}") Duration forecastTtl,
+                        @Value("${weather.cache.max-entries:10000}") long maxEntries,
+                        @Value("${weather.cache.max-stale:1h}") Duration maxStale) {
+        this.sharedCache = sharedCache;
+        this.enabled = enabled;
+        this.currentTtl = currentTtl;
+        this.forecastTtl = forecastTtl;
+        // Caffeine evicts with W-TinyLFU once maxEntries is reached, so popular cities survive bursts of one-off lookups
+        this.currentWeatherCache = Caffeine.newBuilder()
+                .expireAfter(new FetchedAtExpiry<CurrentWeather>(currentTtl.plus(maxStale)))
+                .maximumSize(maxEntries)
+                .recordStats()
+                .buildAsync();
+        this.forecastCache = Caffeine.newBuilder()
+                .expireAfter(new FetchedAtExpiry<List<WeatherForecast>>(forecastTtl.plus(maxStale)))
+                .maximumSize(maxEntries)
+                .recordStats()
+                .buildAsync();
+    }
+
+
+    /**
+     * Returns the cached current weather for the given city, calling the loader on a miss.
+     * Empty results are not cached, so unknown cities and upstream failures are retried on the next request.
+     * A stale entry is returned as is and revalidated in the background.
+     *
+     * @param cityName the formatted city name used as the cache key
+     * @param loader   the function fetching the current weather when it is not cached
+     * @return a future completed with the current weather details for the given city and when they were fetched
+     */
+    public CompletableFuture<Optional<Timestamped<CurrentWeather>>> getCurrentWeather(String cityName,
+                                                                                      Function<String, CompletableFuture<Optional<CurrentWeather>>> loader) {
+        if (!enabled) {
+            return loader.apply(cityName).thenApply(loaded -> loaded.map(WeatherCache::timestamp));
+        }
+        return get(currentWeatherCache, "current:", cityName, currentTtl, currentWeatherLoader(loader));
+    }
+
+    /**
+     * Returns the cached weather forecast for the given city, calling the loader on a miss.
+     * Empty forecasts are not cached. A stale entry is returned as is and revalidated in the background.
+     *
+     * @param cityName the formatted city name used as the cache key
+     * @param loader   the function fetching the forecast when it is not cached
+     * @return a future completed with a list of weather forecasts for the next few days and when they were fetched,
+     * or empty if no forecast is available
+     */
+    public CompletableFuture<Optional<Timestamped<List<WeatherForecast>>>> getWeatherForecast(String cityName,
+                                                                                              Function<String, CompletableFuture<List<WeatherForecast>>> loader) {
+        if (!enabled) {
+            return loader.apply(cityName).thenApply(loaded -> loaded.isEmpty() ? Optional.empty() : Optional.of(timestamp(List.copyOf(loaded))));
+        }
+        return get(forecastCache, "forecast:", cityName, forecastTtl, forecastLoader(loader));
+    }
+
+    /**
+     * Returns the cached current weather of a city without loading it, an entry still being loaded counts as absent.
+     *
+     * @param cityName the formatted city name used as the cache key
+     * @return the cached current weather and when it was fetched, or empty if not cached
+     */
+    public Optional<Timestamped<CurrentWeather>> peekCurrentWeather(String cityName) {
+        CompletableFuture<Timestamped<CurrentWeather>> cached = enabled ? currentWeatherCache.getIfPresent(cityName) : null;
+        if (cached == null || !cached.isDone() || cached.isCompletedExceptionally()) {
+            return Optional.empty();
+        }
+        return Optional.ofNullable(cached.join());
+    }
+
+    /**
+     * Loads the current weather of a city and replaces the cached entry once the new value has arrived.
+     * Readers keep getting the old entry while the refresh is in flight, and it is kept if the refresh fails.
+     * A shared entry newer than the local one is used instead of going upstream.
+     *
+     * @param cityName the formatted city name used as the cache key
+     * @param loader   the function fetching the current weather
+     * @return a future completed with true if the entry was replaced
+     */
+    public CompletableFuture<Boolean> refreshCurrentWeather(String cityName,
+                                                            Function<String, CompletableFuture<Optional<CurrentWeather>>> loader) {
+        if (!enabled) {
+            return CompletableFuture.completedFuture(false);
+        }
+        Instant after = peekCurrentWeather(cityName).map(Timestamped::fetchedAt)
+                .orElseGet(() -> Instant.now().minus(currentTtl));
+        return currentWeatherLoader(loader).apply(cityName, after).thenApply(loaded -> {
+            if (loaded != null) {
+                currentWeatherCache.put(cityName, CompletableFuture.completedFuture(loaded));
+            }
+            return loaded != null;
+        });
+    }
+
+    /**
+     * @return how long a current weather entry is served from the cache
+     */
+    public Duration currentTtl() {
+        return currentTtl;
+    }
+
+    /**
+     * @return how long a forecast entry is served from the cache
+     */
+    public Duration forecastTtl() {
+        return forecastTtl;
+    }
+
+    /**
+     * @return the number of current weather lookups that missed the cache and waited for the loader
+     */
+    public long currentWeatherMisses() {
+        return currentWeatherCache.synchronous().stats().missCount();
+    }
+
+    /**
+     * Removes the current weather and forecast entries of a single city.
+     *
+     * @param cityName the formatted city name used as the cache key
+     */
+    public void invalidate(String cityName) {
+        currentWeatherCache.synchronous().invalidate(cityName);
+        forecastCache.synchronous().invalidate(cityName);
+    }
+
+    /**
+     * Publishes the hit, miss and eviction counters of both caches, and the number of stale entries served.
+     *
+     * @param registry the registry to bind the cache metrics to
+     */
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        CaffeineCacheMetrics.monitor(registry, currentWeatherCache.synchronous(), "currentWeather");
+        CaffeineCacheMetrics.monitor(registry, forecastCache.synchronous(), "weatherForecast");
+        FunctionCounter.builder("weather.cache.stale", staleServed, AtomicLong::get)
+                .description("Lookups answered with an entry past its ttl")
+                .register(registry);
+    }
+
+    /**
+     * Shared tier first, then upstream. The loader completes with null when neither has a value.
+     */
+    private BiFunction<String, Instant, CompletableFuture<Timestamped<CurrentWeather>>> currentWeatherLoader(
+            Function<String, CompletableFuture<Optional<CurrentWeather>>> loader) {
+        return (key, after) -> sharedCache.getCurrentWeather(key, after).thenCompose(shared -> shared.isPresent()
+                ? CompletableFuture.completedFuture(shared.get())
+                : loader.apply(key).thenApply(loaded -> loaded.map(value -> {
+                    Timestamped<CurrentWeather> fetched = timestamp(value);
+                    sharedCache.putCurrentWeather(key, fetched);
+                    return fetched;
+                }).orElse(null)));
+    }
+
+    private BiFunction<String, Instant, CompletableFuture<Timestamped<List<WeatherForecast>>>> forecastLoader(
+            Function<String, CompletableFuture<List<WeatherForecast>>> loader) {
+        return (key, after) -> sharedCache.getWeatherForecast(key, after).thenCompose(shared -> shared.isPresent()
+                ? CompletableFuture.completedFuture(shared.get())
+                : loader.apply(key).thenApply(loaded -> {
+                    if (loaded.isEmpty()) {
+                        return null;
+                    }
+                    Timestamped<List<WeatherForecast>> fetched = timestamp(List.copyOf(loaded));
+                    sharedCache.putWeatherForecast(key, fetched);
+                    return fetched;
+                }));
+    }
+
+    private <T> CompletableFuture<Optional<Timestamped<T>>> get(AsyncCache<String, Timestamped<T>> cache, String prefix, String key,
+                                                                Duration ttl, BiFunction<String, Instant, CompletableFuture<Timestamped<T>>> load) {
+        // only fresh shared entries are taken over, a stale one would be revalidated right away anyway
+        return cache.get(key, (cacheKey, executor) -> load.apply(cacheKey, Instant.now().minus(ttl)))
+                .thenApply(entry -> {
+                    if (entry != null && entry.isStale(ttl)) {
+                        staleServed.incrementAndGet();
+                        revalidate(cache, prefix, key, ttl, load);
+                    }
+                    return Optional.ofNullable(entry);
+                });
+    }
+
+    private <T> void revalidate(AsyncCache<String, Timestamped<T>> cache, String prefix, String key, Duration ttl,
+                                BiFunction<String, Instant, CompletableFuture<Timestamped<T>>> load) {
+        if (!revalidating.add(prefix + key)) {
+            return;
+        }
+        CompletableFuture<Timestamped<T>> loaded;
+        try {
+            loaded = load.apply(key, Instant.now().minus(ttl));
+        } catch (RuntimeException e) {
+            loaded = CompletableFuture.failedFuture(e);
+        }
+        loaded.whenComplete((value, error) -> {
+            revalidating.remove(prefix + key);
+            if (value != null) {
+                cache.put(key, CompletableFuture.completedFuture(value));
+            } else {
+                // the stale entry stays until it reaches the max stale age
+                logger.debug("Revalidation of {}{} failed, serving the stale entry", prefix, key);
+            }
+        });
+    }
+
+    private static <T> Timestamped<T> timestamp(T value) {
+        return Timestamped.of(value, Instant.now());
+    }
+
+    /**
+     * Expires an entry a fixed time after it was fetched rather than after it was cached, so an entry taken over
+     * from the shared tier is not kept longer than one this instance fetched itself.
+     */
+    private record FetchedAtExpiry<T>(Duration lifetime) implements Expiry<String, Timestamped<T>> {
+
+        @Override
+        public long expireAfterCreate(String key, Timestamped<T> entry, long currentTime) {
+            Duration remaining = Duration.between(Instant.now(), entry.fetchedAt().plus(lifetime));
+            return Math.max(0, remaining.toNanos());
+        }
+
+        @Override
+        public long expireAfterUpdate(String key, Timestamped<T> entry, long currentTime, long currentDuration) {
+            return expireAfterCreate(key, entry, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(String key, Timestamped<T> entry, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
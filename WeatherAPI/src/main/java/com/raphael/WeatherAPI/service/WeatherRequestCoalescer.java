@@ -0,0 +1,79 @@
+package com.raphael.WeatherAPI.service;
+
+import com.raphael.WeatherAPI.model.CurrentWeather;
+import com.raphael.WeatherAPI.model.WeatherForecast;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+
+@Component
+public class WeatherRequestCoalescer implements MeterBinder {
+
+    private final SingleFlight<String, Optional<CurrentWeather>> currentWeatherFlights =
+            new SingleFlight<>(callers -> record(this.currentWeatherCallers, callers));
+    private final SingleFlight<String, List<WeatherForecast>> forecastFlights =
+            new SingleFlight<>(callers -> record(this.forecastCallers, callers));
+
+    private volatile DistributionSummary currentWeatherCallers;
+    private volatile DistributionSummary forecastCallers;
+
+
+    /**
+     * Fetches the current weather for the given city, sharing a fetch already in flight for the same city.
+     *
+     * @param cityName the formatted city name
+     * @param fetch    the upstream fetch
+     * @return a future completed with the current weather details for the given city
+     */
+    public CompletableFuture<Optional<CurrentWeather>> getCurrentWeather(String cityName, Supplier<CompletableFuture<Optional<CurrentWeather>>> fetch) {
+        return currentWeatherFlights.execute(cityName, fetch);
+    }
+
+    /**
+     * Fetches the weather forecast for the given city, sharing a fetch already in flight for the same city.
+     *
+     * @param cityName the formatted city name
+     * @param fetch    the upstream fetch
+     * @return a future completed with a list of weather forecasts for the next few days
+     */
+    public CompletableFuture<List<WeatherForecast>> getWeatherForecast(String cityName, Supplier<CompletableFuture<List<WeatherForecast>>> fetch) {
+        return forecastFlights.execute(cityName, fetch);
+    }
+
+    /**
+     * Publishes the number of in-flight fetches and how many callers each fetch served.
+     *
+     * @param registry the registry to bind the coalescing metrics to
+     */
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("weather.upstream.inflight", currentWeatherFlights, SingleFlight::inFlight)
+                .tag("type", "currentWeather")
+                .register(registry);
+        Gauge.builder("weather.upstream.inflight", forecastFlights, SingleFlight::inFlight)
+                .tag("type", "weatherForecast")
+                .register(registry);
+        currentWeatherCallers = callersPerFetch(registry, "currentWeather");
+        forecastCallers = callersPerFetch(registry, "weatherForecast");
+    }
+
+    private static DistributionSummary callersPerFetch(MeterRegistry registry, String type) {
+        return DistributionSummary.builder("weather.upstream.callers.per.fetch")
+                .description("Number of callers served by a single upstream fetch")
+                .tag("type", type)
+                .register(registry);
+    }
+
+    private static void record(DistributionSummary summary, int callers) {
+        if (summary != null) {
+            summary.record(callers);
+        }
+    }
+}
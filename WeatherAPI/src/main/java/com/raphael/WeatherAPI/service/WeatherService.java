@@ -1,37 +1,47 @@
 package com.raphael.WeatherAPI.service;
 
-import com.fasterxml.jackson.core.type.TypeReference;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import com.raphael.WeatherAPI.model.CurrentWeather;
 import com.raphael.WeatherAPI.model.Location;
+import com.raphael.WeatherAPI.model.Timestamped;
 import com.raphael.WeatherAPI.model.WeatherForecast;
 import com.raphael.WeatherAPI.model.response.CurrentWeatherResponse;
+import com.raphael.WeatherAPI.model.response.WeatherConditionResponse;
 import com.raphael.WeatherAPI.model.response.WeatherForecastResponse;
-import com.raphael.WeatherAPI.repository.WeatherRepository;
 import org.apache.commons.text.WordUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
-import org.springframework.web.client.RestTemplate;
 
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 
 @Service
 public class WeatherService {
 
-    private final String API_KEY = "INSERT_KEY_FROM_EMAIL_HERE";
+    private static final int FORECAST_DAYS = 5;
     private static final Logger logger = LoggerFactory.getLogger(WeatherService.class);
-    private final RestTemplate restTemplate;
-    private final ObjectMapper objectMapper;
-    private final WeatherRepository weatherRepository;
+    private final OpenWeatherMapClient weatherClient;
+    private final LocationIndex locationIndex;
+    private final WeatherCache weatherCache;
+    private final WeatherRequestCoalescer requestCoalescer;
+    private final CurrentWeatherBatcher currentWeatherBatcher;
+    private final CityAccessTracker accessTracker;
+    private final UpstreamCircuitBreaker circuitBreaker;
 
-    public WeatherService(RestTemplate restTemplate, WeatherRepository weatherRepository, ObjectMapper objectMapper) {
-        this.restTemplate = restTemplate;
-        this.weatherRepository = weatherRepository;
-        this.objectMapper = objectMapper;
+    public WeatherService(OpenWeatherMapClient weatherClient, LocationIndex locationIndex,
+                          WeatherCache weatherCache, WeatherRequestCoalescer requestCoalescer,
+                          CurrentWeatherBatcher currentWeatherBatcher, CityAccessTracker accessTracker,
+                          UpstreamCircuitBreaker circuitBreaker) {
+        this.weatherClient = weatherClient;
+        this.locationIndex = locationIndex;
+        this.weatherCache = weatherCache;
+        this.requestCoalescer = requestCoalescer;
+        this.currentWeatherBatcher = currentWeatherBatcher;
+        this.accessTracker = accessTracker;
+        this.circuitBreaker = circuitBreaker;
     }
 
 
@@ -42,31 +52,59 @@ public class WeatherService {
      * @return the current weather details for the given location
      */
     public Optional<CurrentWeather> getCurrentWeather(String input) {
-        String cityNameFormatted = formatLocationString(input);
-        Optional<Location> optionalLocation = weatherRepository.findById(cityNameFormatted);
-
-        if (optionalLocation.isPresent()) {
-            Location actualLocation = optionalLocation.get();
-            String uri = "https://api.openweathermap.org/data/2.5/weather?lat=" + actualLocation.coordinates().latitude() +
-                    "&lon=" + actualLocation.coordinates().longitude() + "&appid=" + API_KEY;
-
-            try {
-                String response = restTemplate.getForObject(uri, String.class);
-                Map<String, Object> responseMap = objectMapper.readValue(response, new TypeReference<>() {});
-
-                if (!responseMap.isEmpty()) {
-                    CurrentWeatherResponse currentWeatherResponse = objectMapper.convertValue(responseMap, CurrentWeatherResponse.class);
-                    CurrentWeather currentWeather = mapCurrentWeather(currentWeatherResponse, cityNameFormatted);
-                    return Optional.of(currentWeather);
-                }
-
-            } catch (Exception e) {
-                logger.error("Error occurred while retrieving or deserializing the location data: {}", e.getMessage());
-            }
-        } else {
-            logger.error("Location data is not available for the given city: {} (Current Weather)", cityNameFormatted);
+        return getCurrentWeatherAsync(input).join();
+    }
+
+
+    /**
+     * Retrieves the current weather for the given city without blocking the calling thread on the upstream call
+     * when the reactive client mode is used.
+     *
+     * @param input the name of the city to retrieve the weather for
+     * @return a future completed with the current weather details for the given location,
+     * or failed with a LocationIndexNotReadyException while the locations are still being seeded
+     */
+    public CompletableFuture<Optional<CurrentWeather>> getCurrentWeatherAsync(String input) {
+        return getTimestampedCurrentWeatherAsync(input).thenApply(currentWeather -> currentWeather.map(Timestamped::value));
+    }
+
+
+    /**
+     * Retrieves the current weather for the given city together with the time it was fetched from upstream,
+     * used to derive the freshness of HTTP responses.
+     *
+     * @param input the name of the city to retrieve the weather for
+     * @return a future completed with the timestamped current weather details for the given location,
+     * or failed with a LocationIndexNotReadyException while the locations are still being seeded
+     */
+    public CompletableFuture<Optional<Timestamped<CurrentWeather>>> getTimestampedCurrentWeatherAsync(String input) {
+        if (!locationIndex.isReady()) {
+            return CompletableFuture.failedFuture(new LocationIndexNotReadyException());
         }
-        return Optional.empty();
+        return currentWeather(formatLocationString(input));
+    }
+
+
+    /**
+     * Retrieves the current weather of the known city closest to the given coordinates.
+     * The nearest city goes through the same cache and upstream fetch as a lookup by its name.
+     *
+     * @param latitude  the latitude in degrees
+     * @param longitude the longitude in degrees
+     * @return a future completed with the current weather details of the nearest city and when they were fetched,
+     * or empty if the coordinates are out of range or no location is known
+     */
+    public CompletableFuture<Optional<Timestamped<CurrentWeather>>> getCurrentWeatherNearAsync(double latitude, double longitude) {
+        if (!locationIndex.isReady()) {
+            return CompletableFuture.failedFuture(new LocationIndexNotReadyException());
+        }
+        if (Math.abs(latitude) > 90 || Math.abs(longitude) > 180) {
+            logger.error("Coordinates out of range: lat={}, lon={}", latitude, longitude);
+            return CompletableFuture.completedFuture(Optional.empty());
+        }
+        return locationIndex.nearest(latitude, longitude)
+                .map(this::currentWeather)
+                .orElseGet(() -> CompletableFuture.completedFuture(Optional.empty()));
     }
 
 
@@ -77,47 +115,188 @@ public class WeatherService {
      * @return a list of weather forecasts for the next few days
      */
     public List<WeatherForecast> getWeatherForecast(String input) {
-        String cityNameFormatted = formatLocationString(input);
-        Optional<Location> optionalLocation = weatherRepository.findById(cityNameFormatted);
-
-        if (optionalLocation.isPresent()) {
-            Location actualLocation = optionalLocation.get();
-            String uri = "https://api.openweathermap.org/data/2.5/forecast?lat=" + actualLocation.coordinates().latitude() +
-                    "&lon=" + actualLocation.coordinates().longitude() + "&appid=" + API_KEY;
-
-            try {
-                String response = restTemplate.getForObject(uri, String.class);
-                Map<String, Object> responseMap = objectMapper.readValue(response, new TypeReference<>() {});
-                ArrayList<?> weatherResponseList = (ArrayList<?>) responseMap.get("list");
-                ArrayList<WeatherForecast> weatherForecasts = new ArrayList<>();
-                ArrayList<String> daysInForecast = new ArrayList<>();
-
-                for (Object o : weatherResponseList) {
-                    // Create a map of the object, at index(o), inside the list returned from the api. This will include dt, main, weather, wind, clouds , visibility etc
-                    Map<String, Object> listObjectMap = objectMapper.convertValue(o, new TypeReference<>() {});
-
-                    if (!listObjectMap.isEmpty()) {
-                        WeatherForecastResponse weatherForecastResponse = objectMapper.convertValue(listObjectMap, WeatherForecastResponse.class);
-                        WeatherForecast weatherForecast = mapWeatherForecast(weatherForecastResponse, cityNameFormatted, daysInForecast);
-
-                        if (weatherForecast != null) {
-                            weatherForecasts.add(weatherForecast);
-
-                            if (weatherForecasts.size() == 5) {
-                                break;
-                            }
-                        }
-                    }
-                }
-                return weatherForecasts;
-
-            } catch (Exception e) {
-                logger.error("Error occurred while retrieving or deserializing the location data: {}", e.getMessage());
+        return getWeatherForecastAsync(input).join();
+    }
+
+
+    /**
+     * Retrieves the weather forecast for the given city without blocking the calling thread on the upstream call
+     * when the reactive client mode is used.
+     *
+     * @param input the name of the city to retrieve the weather forecast for
+     * @return a future completed with a list of weather forecasts for the next few days,
+     * or failed with a LocationIndexNotReadyException while the locations are still being seeded
+     */
+    public CompletableFuture<List<WeatherForecast>> getWeatherForecastAsync(String input) {
+        return getTimestampedWeatherForecastAsync(input)
+                .thenApply(weatherForecasts -> weatherForecasts.map(Timestamped::value).orElse(List.of()));
+    }
+
+
+    /**
+     * Retrieves the weather forecast for the given city together with the time it was fetched from upstream.
+     *
+     * @param input the name of the city to retrieve the weather forecast for
+     * @return a future completed with the timestamped weather forecasts for the next few days, or empty if none
+     * are available, or failed with a LocationIndexNotReadyException while the locations are still being seeded
+     */
+    public CompletableFuture<Optional<Timestamped<List<WeatherForecast>>>> getTimestampedWeatherForecastAsync(String input) {
+        if (!locationIndex.isReady()) {
+            return CompletableFuture.failedFuture(new LocationIndexNotReadyException());
+        }
+        return weatherCache.getWeatherForecast(formatLocationString(input),
+                cityName -> requestCoalescer.getWeatherForecast(cityName, () -> fetchWeatherForecast(cityName)));
+    }
+
+
+    /**
+     * Suggests city names for autocomplete.
+     *
+     * @param prefix the beginning of a city name
+     * @param limit  the maximum number of suggestions
+     * @return the known city names starting with the prefix
+     */
+    public List<String> suggestLocations(String prefix, int limit) {
+        if (!locationIndex.isReady()) {
+            throw new LocationIndexNotReadyException();
+        }
+        return locationIndex.suggest(prefix, limit);
+    }
+
+
+    /**
+     * Suggests known city names close to the given input, used to hint at typos when a lookup finds nothing.
+     *
+     * @param input the city name that could not be resolved
+     * @return up to three similar city names, closest first
+     */
+    public List<String> suggestSimilarLocations(String input) {
+        return locationIndex.similar(input, 3);
+    }
+
+
+    /**
+     * Fetches the current weather of a city from upstream and replaces its cached entry, without making readers wait.
+     * Used to refresh hot cities shortly before their entry expires.
+     *
+     * @param cityNameFormatted the formatted name of the city
+     * @return a future completed with true if the cached entry was replaced
+     */
+    public CompletableFuture<Boolean> refreshCurrentWeather(String cityNameFormatted) {
+        return weatherCache.refreshCurrentWeather(cityNameFormatted,
+                cityName -> requestCoalescer.getCurrentWeather(cityName, () -> fetchCurrentWeather(cityName)));
+    }
+
+
+    /**
+     * @return how long a fetched current weather stays fresh
+     */
+    public Duration currentWeatherTtl() {
+        return weatherCache.currentTtl();
+    }
+
+
+    /**
+     * @return how long a fetched forecast stays fresh
+     */
+    public Duration weatherForecastTtl() {
+        return weatherCache.forecastTtl();
+    }
+
+
+    /**
+     * Removes the cached current weather and forecast of the given city, so the next request goes upstream.
+     *
+     * @param input the name of the city to invalidate
+     */
+    public void evictCachedWeather(String input) {
+        weatherCache.invalidate(formatLocationString(input));
+    }
+
+
+    private CompletableFuture<Optional<Timestamped<CurrentWeather>>> currentWeather(String cityNameFormatted) {
+        return weatherCache.getCurrentWeather(cityNameFormatted,
+                        cityName -> requestCoalescer.getCurrentWeather(cityName, () -> fetchCurrentWeather(cityName)))
+                .thenApply(currentWeather -> {
+                    // only cities that resolved are tracked, so typos do not compete for a refresh slot
+                    currentWeather.ifPresent(found -> accessTracker.recordAccess(cityNameFormatted));
+                    return currentWeather;
+                });
+    }
+
+
+    /**
+     * Fetches the current weather for the given city from OpenWeatherMap.
+     *
+     * @param cityNameFormatted the formatted name of the city
+     * @return a future completed with the current weather details, or empty if they could not be retrieved
+     */
+    private CompletableFuture<Optional<CurrentWeather>> fetchCurrentWeather(String cityNameFormatted) {
+        Optional<Location.Coordinates> coordinates = locationIndex.find(cityNameFormatted);
+
+        if (coordinates.isPresent()) {
+            if (!circuitBreaker.tryAcquire()) {
+                logger.warn("OpenWeatherMap circuit is open, not fetching the current weather of {}", cityNameFormatted);
+                return CompletableFuture.completedFuture(Optional.empty());
             }
+            // with grouping enabled, cities with a known id are fetched together with other pending lookups,
+            // the batcher then records the outcome of the group call once rather than once per city
+            Optional<Long> cityId = currentWeatherBatcher.isEnabled() ? locationIndex.findCityId(cityNameFormatted) : Optional.empty();
+            CompletableFuture<CurrentWeatherResponse> upstream = cityId.isPresent()
+                    ? currentWeatherBatcher.fetch(cityId.get())
+                    : weatherClient.fetchCurrentWeather(coordinates.get()).whenComplete((response, error) -> recordUpstreamResult(error));
+
+            return upstream
+                    .thenApply(response -> Optional.of(mapCurrentWeather(response, cityNameFormatted)))
+                    .exceptionally(e -> {
+                        logger.error("Error occurred while retrieving or deserializing the location data: {}", e.getMessage());
+                        return Optional.empty();
+                    });
+        }
+
+        logger.error("Location data is not available for the given city: {} (Current Weather)", cityNameFormatted);
+        return CompletableFuture.completedFuture(Optional.empty());
+    }
+
+
+    /**
+     * Fetches the weather forecast for the given city from OpenWeatherMap.
+     *
+     * @param cityNameFormatted the formatted name of the city
+     * @return a future completed with a list of weather forecasts for the next few days, or empty if they could not be retrieved
+     */
+    private CompletableFuture<List<WeatherForecast>> fetchWeatherForecast(String cityNameFormatted) {
+        Optional<Location.Coordinates> coordinates = locationIndex.find(cityNameFormatted);
+
+        if (coordinates.isPresent()) {
+            if (!circuitBreaker.tryAcquire()) {
+                logger.warn("OpenWeatherMap circuit is open, not fetching the weather forecast of {}", cityNameFormatted);
+                return CompletableFuture.completedFuture(List.of());
+            }
+            List<String> daysInForecast = new ArrayList<>();
+
+            return weatherClient.fetchWeatherForecast(coordinates.get(),
+                            weatherForecastResponse -> mapWeatherForecast(weatherForecastResponse, cityNameFormatted, daysInForecast),
+                            FORECAST_DAYS)
+                    .thenApply(weatherForecasts -> weatherForecasts != null ? weatherForecasts : List.<WeatherForecast>of())
+                    .whenComplete((weatherForecasts, error) -> recordUpstreamResult(error))
+                    .exceptionally(e -> {
+                        logger.error("Error occurred while retrieving or deserializing the location data: {}", e.getMessage());
+                        return List.of();
+                    });
+        }
+
+        logger.error("Location data is not available for the given city: {} (Forecast Weather)", cityNameFormatted);
+        return CompletableFuture.completedFuture(List.of());
+    }
+
+
+    private void recordUpstreamResult(Throwable error) {
+        if (error != null) {
+            circuitBreaker.onFailure();
         } else {
-            logger.error("Location data is not available for the given city: {} (Forecast Weather)", cityNameFormatted);
+            circuitBreaker.onSuccess();
         }
-        return new ArrayList<>();
     }
 
 
@@ -129,15 +308,12 @@ public class WeatherService {
      * @return the mapped CurrentWeather object
      */
     private CurrentWeather mapCurrentWeather(CurrentWeatherResponse response, String cityName) {
-        Double temperature = (Double) response.main().get("temp");
-        temperature -= 273.15;
-        int tempAsInt = (int) Math.round(temperature);
-        int humidity = (Integer) response.main().get("humidity");
-        Double windSpeed = (Double) response.wind().get("speed");
-        String description = (String) response.weather().get(0).get("description");
-        int id = (int) response.weather().get(0).get("id");
+        int tempAsInt = (int) Math.round(response.main().temp() - 273.15);
+        int humidity = response.main().humidity();
+        double windSpeed = response.wind().speed();
+        WeatherConditionResponse condition = response.weather().get(0);
 
-        return new CurrentWeather(cityName, id, tempAsInt, humidity, windSpeed, description);
+        return new CurrentWeather(cityName, condition.id(), tempAsInt, humidity, windSpeed, condition.description());
     }
 
 
@@ -150,20 +326,16 @@ public class WeatherService {
      * @return the mapped WeatherForecast object, or null if the day is already included in the forecast
      */
     private WeatherForecast mapWeatherForecast(WeatherForecastResponse response, String location, List<String> daysInForecast) {
-        Double temperature = Double.parseDouble(response.main().get("temp").toString());
-        temperature -= 273.15;
-        int tempAsInt = (int) Math.round(temperature);
-        int humidity = (int) response.main().get("humidity");
-        Double windSpeed = Double.parseDouble(response.wind().get("speed").toString());
-        String description = (String) response.weather().get(0).get("description");
-        int id = (int) response.weather().get(0).get("id");
-        int dateAsUnix = (int) response.date();
-        int dayAsInt = (int) ((double) (dateAsUnix / 86400) + 4) % 7;
+        int dayAsInt = (int) ((response.date() / 86400 + 4) % 7);
         String dayOfTheWeek = getDayOfWeek(dayAsInt);
 
         if (!daysInForecast.contains(dayOfTheWeek)) {
             daysInForecast.add(dayOfTheWeek);
-            return new WeatherForecast(location, dayOfTheWeek, id, tempAsInt, humidity, windSpeed, description);
+            int tempAsInt = (int) Math.round(response.main().temp() - 273.15);
+            int humidity = response.main().humidity();
+            double windSpeed = response.wind().speed();
+            WeatherConditionResponse condition = response.weather().get(0);
+            return new WeatherForecast(location, dayOfTheWeek, condition.id(), tempAsInt, humidity, windSpeed, condition.description());
         }
 
         return null;
@@ -175,7 +347,7 @@ public class WeatherService {
      * @param input the input string to be formatted
      * @return the formatted location string
      */
-    private String formatLocationString(String input) {
+    static String formatLocationString(String input) {
         return WordUtils.capitalizeFully(input.replace("_", " "));
     }
 
@@ -0,0 +1,420 @@
+package com.raphael.WeatherAPI.service;
+
+import com.raphael.WeatherAPI.model.CurrentWeather;
+import com.raphael.WeatherAPI.model.Timestamped;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Pushes current weather updates to streaming subscribers.
+ * Every watched city has a single refresher that reads it through the weather service when its cached entry is due,
+ * so upstream traffic grows with the number of watched cities, not with the number of connected clients.
+ * Only values that changed since the last push are sent.
+ * A subscriber holds at most one unsent value per city: a slow client skips intermediate values instead of buffering
+ * them, and writes run on a bounded pool of writer threads, so idle connections do not hold a thread.
+ * The scheduler thread only times refreshes and heartbeats, the refreshes themselves run on the task executor.
+ */
+@Component
+public class WeatherUpdateHub implements MeterBinder {
+
+    private static final Logger logger = LoggerFactory.getLogger(WeatherUpdateHub.class);
+    // refreshes are scheduled slightly after the cached entry expires, so they do not read the old entry again
+    private static final Duration REFRESH_SLACK = Duration.ofSeconds(1);
+
+    private final WeatherService weatherService;
+    private final LocationIndex locationIndex;
+    private final Executor refreshExecutor;
+    private final Executor writer;
+    private final int maxSubscribers;
+    private final Duration retryInterval;
+    private final ScheduledExecutorService scheduler;
+    private final Map<String, CityFeed> feeds = new ConcurrentHashMap<>();
+    private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+    // subscribers plus subscriptions in progress, a slot is reserved before subscribing so the limit holds under races
+    private final AtomicInteger subscriberSlots = new AtomicInteger();
+    private final AtomicLong conflated = new AtomicLong();
+
+    @Autowired
+    public WeatherUpdateHub(WeatherService weatherService, LocationIndex locationIndex,
+                            @Qualifier("applicationTaskExecutor") Executor refreshExecutor,
+                            @Value("${weather.stream.writer-threads:8}") int writerThreads,
+                            @Value("${weather.stream.max-subscribers:20000}") int maxSubscribers,
+                            @Value("${weather.stream.heartbeat-interval:30s}") Duration heartbeatInterval,
+                            @Value("${weather.stream.retry-interval:30s}") Duration retryInterval) {
+        this(weatherService, locationIndex, refreshExecutor, newWriter(writerThreads, maxSubscribers),
+                maxSubscribers, heartbeatInterval, retryInterval);
+    }
+
+    /**
+     * @param refreshExecutor runs the refreshes of the watched cities, which may block on the upstream call
+     * @param writer          writes the updates to the subscribers, each subscriber has at most one write queued
+     */
+    public WeatherUpdateHub(WeatherService weatherService, LocationIndex locationIndex, Executor refreshExecutor, Executor writer,
+                            int maxSubscribers, Duration heartbeatInterval, Duration retryInterval) {
+        this.weatherService = weatherService;
+        this.locationIndex = locationIndex;
+        this.refreshExecutor = refreshExecutor;
+        this.writer = writer;
+        this.maxSubscribers = maxSubscribers;
+        this.retryInterval = retryInterval;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "weather-stream-refresher");
+            thread.setDaemon(true);
+            return thread;
+        });
+        // heartbeats keep proxies from closing idle streams and detect clients that went away
+        scheduler.scheduleAtFixedRate(this::heartbeat, heartbeatInterval.toMillis(), heartbeatInterval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+
+    /**
+     * Subscribes to the current weather of a set of cities. The latest known value of every city is sent right away
+     * when available, then every change.
+     *
+     * @param cities the names of the cities to watch
+     * @param sink   receives the updates, called from a single thread at a time
+     * @return the subscription to cancel once the client disconnects, or empty if the maximum number of subscribers is reached
+     * @throws IllegalArgumentException     if a city is unknown
+     * @throws LocationIndexNotReadyException while the locations are still being seeded
+     */
+    public Optional<Subscription> subscribe(Collection<String> cities, Sink sink) {
+        if (!locationIndex.isReady()) {
+            throw new LocationIndexNotReadyException();
+        }
+        Set<String> cityNames = new LinkedHashSet<>();
+        for (String city : cities) {
+            String cityName = WeatherService.formatLocationString(city);
+            if (locationIndex.find(cityName).isEmpty()) {
+                throw new IllegalArgumentException("Unknown location: " + city);
+            }
+            cityNames.add(cityName);
+        }
+        if (!reserveSubscriberSlot()) {
+            return Optional.empty();
+        }
+
+        Subscriber subscriber = new Subscriber(cityNames, sink);
+        subscribers.add(subscriber);
+        for (String cityName : cityNames) {
+            CityFeed feed = feeds.compute(cityName, (key, existing) -> {
+                CityFeed cityFeed = existing != null ? existing : new CityFeed(key);
+                cityFeed.subscribers.add(subscriber);
+                return cityFeed;
+            });
+            if (feed.started.compareAndSet(false, true)) {
+                startRefresh(feed);
+            } else if (feed.latest != null) {
+                subscriber.offer(cityName, feed.latest);
+            }
+        }
+        return Optional.of(() -> unsubscribe(subscriber));
+    }
+
+    /**
+     * @return the number of connected subscribers
+     */
+    public int subscriberCount() {
+        return subscribers.size();
+    }
+
+    /**
+     * @return the number of cities with at least one subscriber
+     */
+    public int watchedCityCount() {
+        return feeds.size();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        scheduler.shutdownNow();
+        if (writer instanceof ExecutorService writerService) {
+            writerService.shutdownNow();
+        }
+    }
+
+    /**
+     * Publishes the number of subscribers and watched cities, and the number of updates a slow client skipped.
+     *
+     * @param registry the registry to bind the streaming metrics to
+     */
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("weather.stream.subscribers", subscribers, Set::size)
+                .description("Connected weather stream subscribers")
+                .register(registry);
+        Gauge.builder("weather.stream.cities", feeds, Map::size)
+                .description("Cities watched by at least one subscriber")
+                .register(registry);
+        FunctionCounter.builder("weather.stream.conflated", conflated, AtomicLong::get)
+                .description("Updates replaced by a newer value before they were sent")
+                .register(registry);
+    }
+
+    private boolean reserveSubscriberSlot() {
+        int slots;
+        do {
+            slots = subscriberSlots.get();
+            if (slots >= maxSubscribers) {
+                return false;
+            }
+        } while (!subscriberSlots.compareAndSet(slots, slots + 1));
+        return true;
+    }
+
+    private void unsubscribe(Subscriber subscriber) {
+        if (!subscribers.remove(subscriber)) {
+            return;
+        }
+        subscriberSlots.decrementAndGet();
+        for (String cityName : subscriber.cityNames) {
+            feeds.computeIfPresent(cityName, (key, feed) -> {
+                feed.subscribers.remove(subscriber);
+                if (feed.subscribers.isEmpty()) {
+                    feed.stop();
+                    return null;
+                }
+                return feed;
+            });
+        }
+    }
+
+    /**
+     * Runs a refresh on the refresh executor, in blocking mode the upstream call holds the thread it runs on.
+     */
+    private void startRefresh(CityFeed feed) {
+        if (feed.stopped) {
+            return;
+        }
+        try {
+            refreshExecutor.execute(() -> refresh(feed));
+        } catch (RejectedExecutionException e) {
+            logger.warn("Refresh of the streamed weather of {} rejected, trying again later: {}", feed.cityName, e.getMessage());
+            scheduleRefresh(feed, retryInterval);
+        }
+    }
+
+    private void scheduleRefresh(CityFeed feed, Duration delay) {
+        try {
+            feed.next(scheduler.schedule(() -> startRefresh(feed), delay.toMillis(), TimeUnit.MILLISECONDS));
+        } catch (RejectedExecutionException e) {
+            // shutting down
+        }
+    }
+
+    private void refresh(CityFeed feed) {
+        if (feed.stopped) {
+            return;
+        }
+        weatherService.getTimestampedCurrentWeatherAsync(feed.cityName).whenComplete((entry, error) -> {
+            Duration delay = retryInterval;
+            if (error != null) {
+                logger.warn("Error occurred while refreshing the streamed weather of {}: {}", feed.cityName, error.getMessage());
+            } else if (entry.isPresent()) {
+                publish(feed, entry.get());
+                Duration age = Duration.between(entry.get().fetchedAt(), Instant.now());
+                Duration fresh = weatherService.currentWeatherTtl().minus(age);
+                // a stale entry is being revalidated by the cache, look again after the retry interval
+                if (!fresh.isNegative()) {
+                    delay = fresh.plus(REFRESH_SLACK);
+                }
+            }
+            scheduleRefresh(feed, delay);
+        });
+    }
+
+    private void publish(CityFeed feed, Timestamped<CurrentWeather> entry) {
+        if (entry.etag().equals(feed.etag)) {
+            return;
+        }
+        feed.etag = entry.etag();
+        feed.latest = entry.value();
+        for (Subscriber subscriber : feed.subscribers) {
+            subscriber.offer(feed.cityName, entry.value());
+        }
+    }
+
+    private void heartbeat() {
+        for (Subscriber subscriber : subscribers) {
+            subscriber.heartbeat();
+        }
+    }
+
+    private static ThreadPoolExecutor newWriter(int writerThreads, int maxSubscribers) {
+        AtomicInteger threads = new AtomicInteger();
+        ThreadPoolExecutor writer = new ThreadPoolExecutor(writerThreads, writerThreads, 30, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, maxSubscribers)), runnable -> {
+            Thread thread = new Thread(runnable, "weather-stream-writer-" + threads.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        writer.allowCoreThreadTimeOut(true);
+        return writer;
+    }
+
+    /**
+     * Receives the updates of one subscriber, typically an open HTTP stream.
+     */
+    public interface Sink {
+
+        /**
+         * @param currentWeather the new current weather of a watched city
+         * @throws IOException if the client can no longer be written to, the subscription is then cancelled
+         */
+        void send(CurrentWeather currentWeather) throws IOException;
+
+        /**
+         * Sends a keep-alive message while no update is due.
+         *
+         * @throws IOException if the client can no longer be written to, the subscription is then cancelled
+         */
+        void heartbeat() throws IOException;
+
+        /**
+         * Ends the stream after the hub dropped the subscriber, because a write failed or could not be queued.
+         */
+        void close();
+    }
+
+    /**
+     * Handle to stop receiving updates.
+     */
+    @FunctionalInterface
+    public interface Subscription {
+
+        void cancel();
+    }
+
+    /**
+     * The refresher and subscribers of one city. Refreshes of a city are chained, so publish never runs concurrently for it.
+     */
+    private static final class CityFeed {
+
+        private final String cityName;
+        private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+        private final AtomicBoolean started = new AtomicBoolean();
+        private volatile String etag;
+        private volatile CurrentWeather latest;
+        private volatile boolean stopped;
+        // guarded by this
+        private ScheduledFuture<?> nextRefresh;
+
+        private CityFeed(String cityName) {
+            this.cityName = cityName;
+        }
+
+        private synchronized void next(ScheduledFuture<?> refresh) {
+            nextRefresh = refresh;
+            if (stopped) {
+                refresh.cancel(false);
+            }
+        }
+
+        private synchronized void stop() {
+            stopped = true;
+            if (nextRefresh != null) {
+                nextRefresh.cancel(false);
+            }
+        }
+    }
+
+    private final class Subscriber {
+
+        private final Set<String> cityNames;
+        private final Sink sink;
+        // latest unsent value per city, a newer value replaces an older one that has not been sent yet
+        private final Map<String, CurrentWeather> pending = new ConcurrentHashMap<>();
+        private final AtomicBoolean draining = new AtomicBoolean();
+        private volatile boolean heartbeatDue;
+
+        private Subscriber(Set<String> cityNames, Sink sink) {
+            this.cityNames = cityNames;
+            this.sink = sink;
+        }
+
+        private void offer(String cityName, CurrentWeather currentWeather) {
+            if (pending.put(cityName, currentWeather) != null) {
+                conflated.incrementAndGet();
+            }
+            scheduleDrain();
+        }
+
+        private void heartbeat() {
+            heartbeatDue = true;
+            scheduleDrain();
+        }
+
+        private void scheduleDrain() {
+            if (draining.compareAndSet(false, true)) {
+                try {
+                    writer.execute(this::drain);
+                } catch (RejectedExecutionException e) {
+                    draining.set(false);
+                    logger.warn("Weather stream update rejected, dropping subscriber: {}", e.getMessage());
+                    unsubscribe(this);
+                    sink.close();
+                }
+            }
+        }
+
+        private void drain() {
+            try {
+                boolean sent = false;
+                for (String cityName : pending.keySet()) {
+                    CurrentWeather currentWeather = pending.remove(cityName);
+                    if (currentWeather != null) {
+                        sink.send(currentWeather);
+                        sent = true;
+                    }
+                }
+                if (heartbeatDue) {
+                    heartbeatDue = false;
+                    if (!sent) {
+                        sink.heartbeat();
+                    }
+                }
+            } catch (IOException | RuntimeException e) {
+                logger.debug("Weather stream subscriber went away: {}", e.getMessage());
+                unsubscribe(this);
+                // otherwise the connection stays open until the stream times out
+                sink.close();
+                return;
+            }
+            draining.set(false);
+            // an update may have arrived after the last read of pending
+            if (!pending.isEmpty()) {
+                scheduleDrain();
+            }
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package com.raphael.WeatherAPI.service;
+
+import com.raphael.WeatherAPI.model.Location;
+import com.raphael.WeatherAPI.model.response.CurrentWeatherResponse;
+import com.raphael.WeatherAPI.model.response.WeatherForecastResponse;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+
+/**
+ * Non-blocking client, no thread is held while waiting on OpenWeatherMap. The connection pool is configured in
+ * {@link com.raphael.WeatherAPI.configuration.MyAppConfig#weatherWebClient}.
+ * Current weather bodies are small and decoded once received. Forecast bodies are decoded as their buffers arrive,
+ * on the thread that delivers them, and the rest of the download is cancelled once the forecast limit is reached.
+ */
+@Component
+@ConditionalOnProperty(name = "openweathermap.client.mode", havingValue = "reactive")
+public class WebClientWeatherClient implements OpenWeatherMapClient {
+
+    private final WebClient webClient;
+    private final OpenWeatherMapDecoder weatherDecoder;
+    private final OpenWeatherMapUris uris;
+
+    public WebClientWeatherClient(WebClient weatherWebClient, OpenWeatherMapDecoder weatherDecoder, OpenWeatherMapUris uris) {
+        this.webClient = weatherWebClient;
+        this.weatherDecoder = weatherDecoder;
+        this.uris = uris;
+    }
+
+
+    @Override
+    public CompletableFuture<CurrentWeatherResponse> fetchCurrentWeather(Location.Coordinates coordinates) {
+        return fetch(uris.currentWeather(coordinates), weatherDecoder::decodeCurrentWeather);
+    }
+
+    @Override
+    public CompletableFuture<Map<Long, CurrentWeatherResponse>> fetchCurrentWeatherGroup(List<Long> cityIds) {
+        return fetch(uris.currentWeatherGroup(cityIds), weatherDecoder::decodeCurrentWeatherGroup);
+    }
+
+    @Override
+    public <T> CompletableFuture<List<T>> fetchWeatherForecast(Location.Coordinates coordinates, Function<WeatherForecastResponse, T> mapper, int limit) {
+        return Mono.defer(() -> {
+                    OpenWeatherMapDecoder.ForecastFeed<T> feed;
+                    try {
+                        feed = weatherDecoder.newForecastFeed(mapper, limit);
+                    } catch (IOException e) {
+                        return Mono.error(e);
+                    }
+                    return webClient.get()
+                            .uri(uris.forecast(coordinates))
+                            .retrieve()
+                            .bodyToFlux(DataBuffer.class)
+                            .<Boolean>handle((buffer, sink) -> {
+                                try {
+                                    sink.next(feed.feed(readAndRelease(buffer)));
+                                } catch (IOException e) {
+                                    sink.error(e);
+                                }
+                            })
+                            // completing on the last needed buffer cancels the rest of the download
+                            .takeUntil(Boolean::booleanValue)
+                            .then(Mono.fromCallable(feed::finish));
+                })
+                .toFuture();
+    }
+
+    private <R> CompletableFuture<R> fetch(String uri, BodyDecoder<R> decoder) {
+        return webClient.get()
+                .uri(uri)
+                .retrieve()
+                .bodyToMono(byte[].class)
+                // an empty body is decoded too, so that it fails like any other body that is not a JSON object
+                .defaultIfEmpty(new byte[0])
+                .<R>handle((body, sink) -> {
+                    try {
+                        sink.next(decoder.decode(new ByteArrayInputStream(body)));
+                    } catch (IOException e) {
+                        sink.error(e);
+                    }
+                })
+                .toFuture();
+    }
+
+    private static byte[] readAndRelease(DataBuffer buffer) {
+        try {
+            byte[] bytes = new byte[buffer.readableByteCount()];
+            buffer.read(bytes);
+            return bytes;
+        } finally {
+            DataBufferUtils.release(buffer);
+        }
+    }
+
+    @FunctionalInterface
+    private interface BodyDecoder<R> {
+        R decode(InputStream body) throws IOException;
+    }
+}
@@ -0,0 +1,59 @@
+package com.raphael.WeatherAPI;
+
+import com.raphael.WeatherAPI.service.BoundedFanOut;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+class BoundedFanOutTest {
+
+    @Test
+    void map_ManyBlockingTasks_NeverExceedsMaxConcurrencyAndKeepsOrder() throws Exception {
+        // Given
+        List<Integer> items = IntStream.range(0, 50).boxed().toList();
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(16);
+
+        try {
+            // When
+            List<Integer> results = BoundedFanOut.map(items, 4, executor, item -> {
+                maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+                sleep(5);
+                running.decrementAndGet();
+                return CompletableFuture.completedFuture(item * 2);
+            }).get(10, TimeUnit.SECONDS);
+
+            // Then
+            Assertions.assertEquals(items.stream().map(item -> item * 2).toList(), results);
+            Assertions.assertTrue(maxRunning.get() <= 4);
+            Assertions.assertTrue(maxRunning.get() > 1);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void map_NoItems_CompletesWithEmptyList() {
+        // When
+        List<String> results = BoundedFanOut.map(List.<String>of(), 4, Runnable::run, CompletableFuture::completedFuture).join();
+
+        // Then
+        Assertions.assertTrue(results.isEmpty());
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package com.raphael.WeatherAPI;
+
+import com.raphael.WeatherAPI.model.response.CurrentWeatherResponse;
+import com.raphael.WeatherAPI.model.response.MainResponse;
+import com.raphael.WeatherAPI.model.response.WindResponse;
+import com.raphael.WeatherAPI.service.CurrentWeatherBatcher;
+import com.raphael.WeatherAPI.service.OpenWeatherMapClient;
+import com.raphael.WeatherAPI.service.UpstreamCircuitBreaker;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class CurrentWeatherBatcherTest {
+
+    @Mock
+    private OpenWeatherMapClient weatherClientMock;
+
+    private CurrentWeatherBatcher batcher;
+
+    private final UpstreamCircuitBreaker circuitBreaker = new UpstreamCircuitBreaker(2, Duration.ofMinutes(1));
+
+    private static final CurrentWeatherResponse LONDON = new CurrentWeatherResponse(new MainResponse(289.92, 72), new WindResponse(4.0), List.of());
+    private static final CurrentWeatherResponse PARIS = new CurrentWeatherResponse(new MainResponse(291.15, 60), new WindResponse(2.1), List.of());
+
+    @AfterEach
+    void tearDown() {
+        batcher.shutdown();
+    }
+
+    @Test
+    void fetch_LookupsWithinWindow_SentAsOneGroupCall() throws Exception {
+        // Given
+        batcher = new CurrentWeatherBatcher(weatherClientMock, circuitBreaker, true, Duration.ofMillis(50), 20, 4, 100);
+        when(weatherClientMock.fetchCurrentWeatherGroup(List.of(2643743L, 2988507L, 1L)))
+                .thenReturn(CompletableFuture.completedFuture(Map.of(2643743L, LONDON, 2988507L, PARIS)));
+
+        // When
+        CompletableFuture<CurrentWeatherResponse> london = batcher.fetch(2643743L);
+        CompletableFuture<CurrentWeatherResponse> paris = batcher.fetch(2988507L);
+        CompletableFuture<CurrentWeatherResponse> londonAgain = batcher.fetch(2643743L);
+        CompletableFuture<CurrentWeatherResponse> missing = batcher.fetch(1L);
+
+        // Then
+        Assertions.assertEquals(LONDON, london.get(5, TimeUnit.SECONDS));
+        Assertions.assertEquals(PARIS, paris.get(5, TimeUnit.SECONDS));
+        Assertions.assertEquals(LONDON, londonAgain.get(5, TimeUnit.SECONDS));
+        Assertions.assertThrows(ExecutionException.class, () -> missing.get(5, TimeUnit.SECONDS));
+        verify(weatherClientMock, times(1)).fetchCurrentWeatherGroup(anyList());
+    }
+
+    @Test
+    void fetch_BatchFull_SentWithoutWaitingForWindow() throws Exception {
+        // Given
+        batcher = new CurrentWeatherBatcher(weatherClientMock, circuitBreaker, true, Duration.ofHours(1), 2, 4, 100);
+        AtomicReference<Thread> callingThread = new AtomicReference<>();
+        when(weatherClientMock.fetchCurrentWeatherGroup(List.of(2643743L, 2988507L))).thenAnswer(invocation -> {
+            callingThread.set(Thread.currentThread());
+            return CompletableFuture.completedFuture(Map.of(2643743L, LONDON, 2988507L, PARIS));
+        });
+
+        // When
+        CompletableFuture<CurrentWeatherResponse> london = batcher.fetch(2643743L);
+        CompletableFuture<CurrentWeatherResponse> paris = batcher.fetch(2988507L);
+
+        // Then
+        Assertions.assertEquals(LONDON, london.get(1, TimeUnit.SECONDS));
+        Assertions.assertEquals(PARIS, paris.get(1, TimeUnit.SECONDS));
+        Assertions.assertNotSame(Thread.currentThread(), callingThread.get());
+    }
+
+    @Test
+    void fetch_GroupCallFails_CountsAsOneUpstreamFailure() {
+        // Given
+        batcher = new CurrentWeatherBatcher(weatherClientMock, circuitBreaker, true, Duration.ofMillis(50), 20, 4, 100);
+        when(weatherClientMock.fetchCurrentWeatherGroup(anyList()))
+                .thenReturn(CompletableFuture.failedFuture(new IllegalStateException("Service unavailable")));
+
+        // When
+        CompletableFuture<CurrentWeatherResponse> london = batcher.fetch(2643743L);
+        CompletableFuture<CurrentWeatherResponse> paris = batcher.fetch(2988507L);
+        CompletableFuture<CurrentWeatherResponse> berlin = batcher.fetch(2950159L);
+
+        // Then
+        Assertions.assertThrows(ExecutionException.class, () -> london.get(5, TimeUnit.SECONDS));
+        Assertions.assertThrows(ExecutionException.class, () -> paris.get(5, TimeUnit.SECONDS));
+        Assertions.assertThrows(ExecutionException.class, () -> berlin.get(5, TimeUnit.SECONDS));
+        // three failed lookups but a single failed call, below the threshold of two
+        Assertions.assertEquals(UpstreamCircuitBreaker.State.CLOSED, circuitBreaker.state());
+        verify(weatherClientMock, times(1)).fetchCurrentWeatherGroup(anyList());
+    }
+}
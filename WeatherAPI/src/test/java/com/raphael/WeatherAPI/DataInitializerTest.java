@@ -0,0 +1,193 @@
+package com.raphael.WeatherAPI;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.raphael.WeatherAPI.configuration.DataInitializer;
+import com.raphael.WeatherAPI.configuration.LocationFileReader;
+import com.raphael.WeatherAPI.model.Location;
+import com.raphael.WeatherAPI.model.SeedMetadata;
+import com.raphael.WeatherAPI.repository.LocationChangeListener;
+import com.raphael.WeatherAPI.repository.WeatherRepository;
+import com.raphael.WeatherAPI.service.LocationIndex;
+import org.bson.Document;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.FindAndReplaceOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class DataInitializerTest {
+
+    @Mock
+    private MongoTemplate mongoTemplateMock;
+
+    @Mock
+    private BulkOperations bulkOperationsMock;
+
+    @Mock
+    private WeatherRepository weatherRepositoryMock;
+
+    private LocationIndex locationIndex;
+    private DataInitializer dataInitializer;
+
+    private static final Location LONDON = new Location("London", new Location.Coordinates(51.50853, -0.12574), 2643743L);
+    private static final Location PARIS = new Location("Paris", new Location.Coordinates(48.85341, 2.3488), 2988507L);
+    private static final Location BERLIN = new Location("Berlin", new Location.Coordinates(52.52437, 13.41053), 2950159L);
+
+    @BeforeEach
+    void setUp() {
+        locationIndex = new LocationIndex(weatherRepositoryMock);
+        dataInitializer = new DataInitializer(mongoTemplateMock, new LocationFileReader(new ObjectMapper()), locationIndex,
+                "/data/test-locations.json", 2, 1000, Duration.ofMillis(10), Duration.ofMillis(40));
+    }
+
+    @Test
+    void initializeData_ChangedFile_WritesOnlyTheDifferences() {
+        // Given
+        Location movedParis = new Location("Paris", new Location.Coordinates(0.0, 0.0), 2988507L);
+        Location madrid = new Location("Madrid", new Location.Coordinates(40.4165, -3.70256));
+        when(weatherRepositoryMock.findAll()).thenReturn(List.of(LONDON, movedParis, madrid));
+        when(mongoTemplateMock.bulkOps(BulkOperations.BulkMode.UNORDERED, Location.class)).thenReturn(bulkOperationsMock);
+
+        // When
+        dataInitializer.initializeData();
+
+        // Then
+        verify(bulkOperationsMock).replaceOne(any(Query.class), eq(PARIS), any(FindAndReplaceOptions.class));
+        verify(bulkOperationsMock).replaceOne(any(Query.class), eq(BERLIN), any(FindAndReplaceOptions.class));
+        verify(bulkOperationsMock, never()).replaceOne(any(Query.class), eq(LONDON), any(FindAndReplaceOptions.class));
+
+        ArgumentCaptor<Query> removed = ArgumentCaptor.forClass(Query.class);
+        verify(mongoTemplateMock).remove(removed.capture(), eq(Location.class));
+        Assertions.assertEquals(new Document("_id", new Document("$in", List.of("Madrid"))), removed.getValue().getQueryObject());
+
+        ArgumentCaptor<SeedMetadata> metadata = ArgumentCaptor.forClass(SeedMetadata.class);
+        verify(mongoTemplateMock).save(metadata.capture());
+        Assertions.assertEquals(3, metadata.getValue().count());
+        Assertions.assertEquals(64, metadata.getValue().checksum().length());
+        Assertions.assertTrue(locationIndex.isReady());
+    }
+
+    @Test
+    void initializeData_PreviouslySeededCollection_IsReadyWhileTheSeedRuns() {
+        // Given
+        AtomicBoolean readyDuringSeed = new AtomicBoolean();
+        when(weatherRepositoryMock.findAll()).thenReturn(List.of(LONDON));
+        when(mongoTemplateMock.bulkOps(BulkOperations.BulkMode.UNORDERED, Location.class)).thenReturn(bulkOperationsMock);
+        when(bulkOperationsMock.execute()).thenAnswer(invocation -> {
+            readyDuringSeed.set(locationIndex.isReady());
+            return null;
+        });
+
+        // When
+        dataInitializer.initializeData();
+
+        // Then
+        Assertions.assertTrue(readyDuringSeed.get());
+    }
+
+    @Test
+    void initializeData_BulkUpsertEvents_RebuildTheIndexOnlyOnceAtTheEnd() throws Exception {
+        // Given
+        LocationChangeListener listener = new LocationChangeListener(locationIndex);
+        when(weatherRepositoryMock.findAll()).thenReturn(List.of()).thenReturn(List.of(LONDON, PARIS, BERLIN));
+        when(mongoTemplateMock.bulkOps(BulkOperations.BulkMode.UNORDERED, Location.class)).thenReturn(bulkOperationsMock);
+        // bulk operations publish an after save event for every upserted document
+        when(bulkOperationsMock.execute()).thenAnswer(invocation -> {
+            listener.onAfterSave(null);
+            return null;
+        });
+
+        // When
+        dataInitializer.initializeData();
+        Thread.sleep(100);
+
+        // Then
+        verify(weatherRepositoryMock, times(2)).findAll();
+        Assertions.assertFalse(locationIndex.isSeeding());
+        Assertions.assertEquals(3, locationIndex.size());
+    }
+
+    @Test
+    void initializeDataUntilLoaded_RepositoryUnavailableAtStartup_BecomesReadyOnceItIsBack() {
+        // Given
+        when(weatherRepositoryMock.findAll())
+                .thenThrow(new IllegalStateException("Mongo unavailable"))
+                .thenThrow(new IllegalStateException("Mongo unavailable"))
+                .thenReturn(List.of(LONDON, PARIS, BERLIN));
+
+        // When
+        dataInitializer.initializeData();
+
+        // Then
+        Assertions.assertFalse(locationIndex.isReady());
+        verifyNoInteractions(mongoTemplateMock);
+
+        // When
+        dataInitializer.initializeDataUntilLoaded();
+
+        // Then
+        Assertions.assertTrue(locationIndex.isReady());
+        Assertions.assertEquals(3, locationIndex.size());
+        verify(weatherRepositoryMock, times(3)).findAll();
+    }
+
+    @Test
+    void initializeDataUntilLoaded_SeedingFailsAfterWrites_RefreshesTheIndexAndRetriesTheSeed() {
+        // Given
+        when(weatherRepositoryMock.findAll())
+                .thenReturn(List.of())
+                .thenReturn(List.of(LONDON, PARIS))
+                .thenReturn(List.of(LONDON, PARIS))
+                .thenReturn(List.of(LONDON, PARIS, BERLIN));
+        when(mongoTemplateMock.bulkOps(BulkOperations.BulkMode.UNORDERED, Location.class)).thenReturn(bulkOperationsMock);
+        // the first batch is written, the second fails
+        when(bulkOperationsMock.execute())
+                .thenReturn(null)
+                .thenThrow(new IllegalStateException("Mongo unavailable"))
+                .thenReturn(null);
+
+        // When
+        dataInitializer.initializeDataUntilLoaded();
+
+        // Then
+        verify(weatherRepositoryMock, times(4)).findAll();
+        verify(bulkOperationsMock, times(2)).replaceOne(any(Query.class), eq(BERLIN), any(FindAndReplaceOptions.class));
+        verify(mongoTemplateMock).save(any(SeedMetadata.class));
+        Assertions.assertEquals(3, locationIndex.size());
+        Assertions.assertTrue(locationIndex.isReady());
+    }
+
+    @Test
+    void initializeData_UnchangedChecksum_SkipsSeeding() {
+        // Given
+        when(weatherRepositoryMock.findAll()).thenReturn(List.of());
+        when(mongoTemplateMock.bulkOps(BulkOperations.BulkMode.UNORDERED, Location.class)).thenReturn(bulkOperationsMock);
+        dataInitializer.initializeData();
+
+        ArgumentCaptor<SeedMetadata> metadata = ArgumentCaptor.forClass(SeedMetadata.class);
+        verify(mongoTemplateMock).save(metadata.capture());
+        when(mongoTemplateMock.findById("locations", SeedMetadata.class)).thenReturn(metadata.getValue());
+        clearInvocations(mongoTemplateMock, bulkOperationsMock);
+
+        // When
+        dataInitializer.initializeData();
+
+        // Then
+        verify(mongoTemplateMock, never()).bulkOps(any(BulkOperations.BulkMode.class), eq(Location.class));
+        verify(mongoTemplateMock, never()).save(any());
+        verifyNoInteractions(bulkOperationsMock);
+    }
+}
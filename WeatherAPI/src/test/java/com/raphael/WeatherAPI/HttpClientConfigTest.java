@@ -0,0 +1,62 @@
+package com.raphael.WeatherAPI;
+
+import com.raphael.WeatherAPI.configuration.HttpClientConfig;
+import com.raphael.WeatherAPI.configuration.MeteredConnectionManager;
+import com.sun.net.httpserver.HttpServer;
+import org.apache.hc.client5.http.classic.methods.HttpGet;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.core5.http.io.entity.EntityUtils;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+class HttpClientConfigTest {
+
+    private HttpServer server;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.createContext("/weather", exchange -> {
+            byte[] body = "{}".getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(200, body.length);
+            exchange.getResponseBody().write(body);
+            exchange.close();
+        });
+        server.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.stop(0);
+    }
+
+    @Test
+    void upstreamHttpClient_ConnectionIdleLongerThanEviction_IsClosed() throws Exception {
+        // Given
+        HttpClientConfig config = new HttpClientConfig();
+        MeteredConnectionManager connectionManager = config.upstreamConnectionManager(10, 10, Duration.ofSeconds(5), Duration.ofSeconds(2));
+        String uri = "http://localhost:" + server.getAddress().getPort() + "/weather";
+
+        try (CloseableHttpClient httpClient = config.upstreamHttpClient(connectionManager,
+                Duration.ofSeconds(2), Duration.ofSeconds(1), Duration.ofSeconds(5), Duration.ofMillis(100))) {
+            // When
+            httpClient.execute(new HttpGet(uri), response -> EntityUtils.toString(response.getEntity()));
+            Assertions.assertEquals(1, connectionManager.getTotalStats().getAvailable());
+
+            // Then
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while (connectionManager.getTotalStats().getAvailable() > 0 && System.nanoTime() < deadline) {
+                Thread.sleep(20);
+            }
+            Assertions.assertEquals(0, connectionManager.getTotalStats().getAvailable());
+        }
+    }
+}
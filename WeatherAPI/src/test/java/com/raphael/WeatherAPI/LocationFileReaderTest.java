@@ -0,0 +1,50 @@
+package com.raphael.WeatherAPI;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.raphael.WeatherAPI.configuration.LocationFileReader;
+import com.raphael.WeatherAPI.model.Location;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+class LocationFileReaderTest {
+
+    private final LocationFileReader reader = new LocationFileReader(new ObjectMapper());
+
+    @Test
+    void read_ArrayOfLocations_DeliversBatchesOfAtMostBatchSize() throws IOException {
+        // Given
+        String json = "[{\"id\":2643743,\"name\":\"London\",\"state\":\"\",\"country\":\"GB\",\"coord\":{\"lon\":-0.12574,\"lat\":51.50853}},"
+                + "{\"id\":2988507,\"name\":\"Paris\",\"coord\":{\"lon\":2.3488,\"lat\":48.85341}},"
+                + "{\"id\":2950159,\"name\":\"Berlin\",\"coord\":{\"lon\":13.41053,\"lat\":52.52437}}]";
+        List<List<String>> batches = new ArrayList<>();
+        List<Long> cityIds = new ArrayList<>();
+
+        // When
+        long count = reader.read(new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8)), 2,
+                batch -> {
+                    batches.add(batch.stream().map(Location::name).toList());
+                    batch.forEach(location -> cityIds.add(location.cityId()));
+                });
+
+        // Then
+        Assertions.assertEquals(3, count);
+        Assertions.assertEquals(List.of(2643743L, 2988507L, 2950159L), cityIds);
+        Assertions.assertEquals(List.of(List.of("London", "Paris"), List.of("Berlin")), batches);
+    }
+
+    @Test
+    void read_NotAnArray_ThrowsIOException() {
+        // Given
+        String json = "{\"name\":\"London\"}";
+
+        // Then
+        Assertions.assertThrows(IOException.class,
+                () -> reader.read(new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8)), 10, batch -> {}));
+    }
+}
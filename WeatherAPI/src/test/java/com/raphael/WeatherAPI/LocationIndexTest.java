@@ -0,0 +1,202 @@
+package com.raphael.WeatherAPI;
+
+import com.raphael.WeatherAPI.model.Location;
+import com.raphael.WeatherAPI.repository.WeatherRepository;
+import com.raphael.WeatherAPI.service.LocationIndex;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class LocationIndexTest {
+
+    @Mock
+    private WeatherRepository weatherRepositoryMock;
+
+    @Test
+    void find_AfterRefresh_ResolvesEveryLocationWithoutRepositoryLookups() {
+        // Given
+        List<Location> locations = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            locations.add(new Location("City " + i, new Location.Coordinates(i / 10.0, -i / 10.0)));
+        }
+        locations.add(new Location("Broken", null));
+        when(weatherRepositoryMock.findAll()).thenReturn(locations);
+        LocationIndex locationIndex = new LocationIndex(weatherRepositoryMock);
+
+        // When
+        locationIndex.refresh();
+
+        // Then
+        Assertions.assertTrue(locationIndex.isLoaded());
+        Assertions.assertEquals(1000, locationIndex.size());
+        for (int i = 0; i < 1000; i++) {
+            Assertions.assertEquals(Optional.of(new Location.Coordinates(i / 10.0, -i / 10.0)), locationIndex.find("City " + i));
+        }
+        Assertions.assertTrue(locationIndex.find("Broken").isEmpty());
+        Assertions.assertTrue(locationIndex.find("Atlantis").isEmpty());
+        verify(weatherRepositoryMock, times(1)).findAll();
+        verifyNoMoreInteractions(weatherRepositoryMock);
+    }
+
+    @Test
+    void nearest_RandomCoordinates_MatchesBruteForceGreatCircleSearch() {
+        // Given
+        Random random = new Random(42);
+        List<Location> locations = new ArrayList<>();
+        for (int i = 0; i < 5000; i++) {
+            locations.add(new Location("City " + i, new Location.Coordinates(random.nextDouble() * 180 - 90, random.nextDouble() * 360 - 180)));
+        }
+        LocationIndex locationIndex = new LocationIndex(weatherRepositoryMock);
+        locationIndex.replace(locations);
+
+        for (int i = 0; i < 500; i++) {
+            double latitude = random.nextDouble() * 180 - 90;
+            double longitude = random.nextDouble() * 360 - 180;
+
+            // When
+            Optional<String> nearest = locationIndex.nearest(latitude, longitude);
+
+            // Then
+            Location expected = locations.stream()
+                    .min(Comparator.comparingDouble(location -> greatCircleDistance(latitude, longitude, location.coordinates())))
+                    .orElseThrow();
+            Assertions.assertEquals(Optional.of(expected.name()), nearest);
+        }
+    }
+
+    @Test
+    void nearest_AcrossTheAntimeridian_FindsTheCloserCity() {
+        // Given
+        LocationIndex locationIndex = new LocationIndex(weatherRepositoryMock);
+        locationIndex.replace(List.of(
+                new Location("Suva", new Location.Coordinates(-18.14161, 178.44149)),
+                new Location("Apia", new Location.Coordinates(-13.83333, -171.76666)),
+                new Location("Lima", new Location.Coordinates(-12.04318, -77.02824))));
+
+        // Then
+        Assertions.assertEquals(Optional.of("Suva"), locationIndex.nearest(-18.0, -179.9));
+        Assertions.assertTrue(new LocationIndex(weatherRepositoryMock).nearest(0, 0).isEmpty());
+    }
+
+    @Test
+    void suggest_PrefixIgnoringCaseAndDiacritics_ReturnsMatchesAlphabetically() {
+        // Given
+        LocationIndex locationIndex = new LocationIndex(weatherRepositoryMock);
+        locationIndex.replace(List.of(
+                new Location("Londonderry", new Location.Coordinates(54.9981, -7.30934)),
+                new Location("London", new Location.Coordinates(51.50853, -0.12574)),
+                new Location("Longford", new Location.Coordinates(53.72749, -7.79856)),
+                new Location("São Paulo", new Location.Coordinates(-23.5475, -46.63611)),
+                new Location("Paris", new Location.Coordinates(48.85341, 2.3488))));
+
+        // Then
+        Assertions.assertEquals(List.of("London", "Londonderry"), locationIndex.suggest("lond", 10));
+        Assertions.assertEquals(List.of("London"), locationIndex.suggest("LON", 1));
+        Assertions.assertEquals(List.of("São Paulo"), locationIndex.suggest("sao_p", 10));
+        Assertions.assertTrue(locationIndex.suggest("x", 10).isEmpty());
+        Assertions.assertTrue(locationIndex.suggest(" ", 10).isEmpty());
+    }
+
+    @Test
+    void similar_MisspelledName_ReturnsClosestNamesFirst() {
+        // Given
+        LocationIndex locationIndex = new LocationIndex(weatherRepositoryMock);
+        locationIndex.replace(List.of(
+                new Location("London", new Location.Coordinates(51.50853, -0.12574)),
+                new Location("Londrina", new Location.Coordinates(-23.31028, -51.16278)),
+                new Location("Paris", new Location.Coordinates(48.85341, 2.3488)),
+                new Location("Bari", new Location.Coordinates(41.11148, 16.8554))));
+
+        // Then
+        Assertions.assertEquals(List.of("London"), locationIndex.similar("Lodnon", 3));
+        Assertions.assertEquals(List.of("Paris"), locationIndex.similar("Par1s", 3));
+        Assertions.assertEquals(List.of("London"), locationIndex.similar("londn", 3));
+        Assertions.assertEquals(List.of("Bari"), locationIndex.similar("Bri", 3));
+        Assertions.assertEquals(List.of("London"), locationIndex.similar("Xondon", 3));
+        Assertions.assertTrue(locationIndex.similar("Tokyo", 3).isEmpty());
+    }
+
+    @Test
+    void find_BeforeRefresh_ReturnsEmpty() {
+        // Given
+        LocationIndex locationIndex = new LocationIndex(weatherRepositoryMock);
+
+        // Then
+        Assertions.assertFalse(locationIndex.isLoaded());
+        Assertions.assertTrue(locationIndex.find("London").isEmpty());
+    }
+
+    @Test
+    void refresh_OlderReadFinishesLast_KeepsTheNewerSnapshot() throws Exception {
+        // Given
+        CountDownLatch olderReading = new CountDownLatch(1);
+        CountDownLatch newerInstalled = new CountDownLatch(1);
+        List<Location> older = List.of(new Location("London", new Location.Coordinates(51.50853, -0.12574)));
+        List<Location> newer = List.of(new Location("London", new Location.Coordinates(51.50853, -0.12574)),
+                new Location("Paris", new Location.Coordinates(48.85341, 2.3488)));
+        when(weatherRepositoryMock.findAll()).thenAnswer(invocation -> {
+            olderReading.countDown();
+            newerInstalled.await(5, TimeUnit.SECONDS);
+            return older;
+        }).thenReturn(newer);
+        LocationIndex locationIndex = new LocationIndex(weatherRepositoryMock);
+
+        // When
+        CompletableFuture<Void> slowRefresh = CompletableFuture.runAsync(locationIndex::refresh);
+        olderReading.await(5, TimeUnit.SECONDS);
+        locationIndex.refresh();
+        newerInstalled.countDown();
+        slowRefresh.get(5, TimeUnit.SECONDS);
+
+        // Then
+        Assertions.assertEquals(2, locationIndex.size());
+        Assertions.assertTrue(locationIndex.find("Paris").isPresent());
+    }
+
+    @Test
+    void refreshAsync_ChangeDuringRebuild_RebuildsAgainAfterwards() throws Exception {
+        // Given
+        List<Location> updated = List.of(new Location("Paris", new Location.Coordinates(48.85341, 2.3488)));
+        LocationIndex locationIndex = new LocationIndex(weatherRepositoryMock);
+        when(weatherRepositoryMock.findAll()).thenAnswer(invocation -> {
+            // a location saved while the first rebuild reads the collection
+            locationIndex.refreshAsync();
+            return List.of();
+        }).thenReturn(updated);
+
+        // When
+        locationIndex.refreshAsync();
+
+        // Then
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (locationIndex.find("Paris").isEmpty() && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        Assertions.assertTrue(locationIndex.find("Paris").isPresent());
+        verify(weatherRepositoryMock, times(2)).findAll();
+        locationIndex.shutdown();
+    }
+
+    private static double greatCircleDistance(double latitude, double longitude, Location.Coordinates coordinates) {
+        double lat1 = Math.toRadians(latitude);
+        double lat2 = Math.toRadians(coordinates.latitude());
+        double deltaLat = lat2 - lat1;
+        double deltaLon = Math.toRadians(coordinates.longitude() - longitude);
+        double a = Math.pow(Math.sin(deltaLat / 2), 2) + Math.cos(lat1) * Math.cos(lat2) * Math.pow(Math.sin(deltaLon / 2), 2);
+        return 2 * Math.asin(Math.sqrt(a));
+    }
+}
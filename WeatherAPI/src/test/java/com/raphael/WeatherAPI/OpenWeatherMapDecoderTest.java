@@ -0,0 +1,87 @@
+package com.raphael.WeatherAPI;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.raphael.WeatherAPI.model.response.CurrentWeatherResponse;
+import com.raphael.WeatherAPI.model.response.MainResponse;
+import com.raphael.WeatherAPI.model.response.WeatherConditionResponse;
+import com.raphael.WeatherAPI.model.response.WeatherForecastResponse;
+import com.raphael.WeatherAPI.model.response.WindResponse;
+import com.raphael.WeatherAPI.service.OpenWeatherMapDecoder;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+class OpenWeatherMapDecoderTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final OpenWeatherMapDecoder decoder = new OpenWeatherMapDecoder(objectMapper);
+
+    private static final String CURRENT_WEATHER_JSON = "{\"coord\":{\"lon\":-0.1257,\"lat\":51.5085},\"weather\":[{\"id\":803,\"main\":\"Clouds\",\"description\":\"broken clouds\",\"icon\":\"04d\"},{\"id\":500,\"main\":\"Rain\",\"description\":\"light rain\",\"icon\":\"10d\"}],\"base\":\"stations\",\"main\":{\"temp\":289.92,\"feels_like\":289.5,\"temp_min\":288.71,\"temp_max\":291.15,\"pressure\":1012,\"humidity\":72},\"visibility\":10000,\"wind\":{\"speed\":4,\"deg\":240},\"clouds\":{\"all\":75},\"dt\":1687164000,\"name\":\"London\",\"cod\":200}";
+
+    @Test
+    void decodeCurrentWeather_FullPayload_MatchesJacksonDataBinding() throws IOException {
+        // When
+        CurrentWeatherResponse streamed = decoder.decodeCurrentWeather(stream(CURRENT_WEATHER_JSON));
+        CurrentWeatherResponse bound = objectMapper.readValue(CURRENT_WEATHER_JSON, CurrentWeatherResponse.class);
+
+        // Then
+        Assertions.assertEquals(new MainResponse(289.92, 72), streamed.main());
+        Assertions.assertEquals(new WindResponse(4.0), streamed.wind());
+        Assertions.assertEquals(List.of(new WeatherConditionResponse(803, "broken clouds")), streamed.weather());
+        Assertions.assertEquals(bound.main(), streamed.main());
+        Assertions.assertEquals(bound.wind(), streamed.wind());
+        Assertions.assertEquals(bound.weather().get(0), streamed.weather().get(0));
+    }
+
+    @Test
+    void decodeForecast_LimitReached_StopsReadingEntries() throws IOException {
+        // Given
+        String forecastJson = "{\"cod\":\"200\",\"list\":["
+                + "{\"dt\":1687024800,\"main\":{\"temp\":297.24,\"humidity\":54},\"weather\":[{\"id\":500,\"description\":\"light rain\"}],\"wind\":{\"speed\":3.9}},"
+                + "{\"dt\":1687035600,\"main\":{\"temp\":292.96,\"humidity\":77},\"weather\":[{\"id\":500,\"description\":\"light rain\"}],\"wind\":{\"speed\":2.36}},"
+                + "{\"dt\":1687046400,\"main\":{\"temp\":289.85,\"humidity\":92},\"weather\":[{\"id\":804,\"description\":\"overcast clouds\"}],\"wind\":{\"speed\":1.35}},"
+                + "{\"dt\":1687057200,\"main\":{\"temp\":289.52,\"humidity\":92},\"weather\":[{\"id\":804,\"description\":\"overcast clouds\"}],\"wind\":{\"speed\":0.87}}"
+                + "],\"city\":{\"name\":\"London\"}}";
+        List<WeatherForecastResponse> seen = new ArrayList<>();
+
+        // When
+        List<Long> dates = decoder.decodeForecast(stream(forecastJson), response -> {
+            seen.add(response);
+            return response.weather().get(0).id() == 804 ? response.date() : null;
+        }, 1);
+
+        // Then
+        Assertions.assertEquals(List.of(1687046400L), dates);
+        Assertions.assertEquals(3, seen.size());
+        Assertions.assertEquals(new MainResponse(297.24, 54), seen.get(0).main());
+        Assertions.assertEquals(new WindResponse(3.9), seen.get(0).wind());
+    }
+
+    @Test
+    void decodeCurrentWeatherGroup_SeveralCities_ReturnsResponsesByCityId() throws IOException {
+        // Given
+        String groupJson = "{\"cnt\":2,\"list\":["
+                + "{\"coord\":{\"lon\":-0.1257,\"lat\":51.5085},\"weather\":[{\"id\":803,\"description\":\"broken clouds\"}],\"main\":{\"temp\":289.92,\"humidity\":72},\"wind\":{\"speed\":4},\"id\":2643743,\"name\":\"London\"},"
+                + "{\"weather\":[{\"id\":800,\"description\":\"clear sky\"}],\"main\":{\"temp\":291.15,\"humidity\":60},\"wind\":{\"speed\":2.1},\"id\":2988507,\"name\":\"Paris\"}"
+                + "]}";
+
+        // When
+        Map<Long, CurrentWeatherResponse> responses = decoder.decodeCurrentWeatherGroup(stream(groupJson));
+
+        // Then
+        Assertions.assertEquals(2, responses.size());
+        Assertions.assertEquals(new MainResponse(289.92, 72), responses.get(2643743L).main());
+        Assertions.assertEquals(List.of(new WeatherConditionResponse(800, "clear sky")), responses.get(2988507L).weather());
+    }
+
+    private static InputStream stream(String json) {
+        return new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,135 @@
+package com.raphael.WeatherAPI;
+
+import com.raphael.WeatherAPI.model.CurrentWeather;
+import com.raphael.WeatherAPI.service.CityAccessTracker;
+import com.raphael.WeatherAPI.service.RefreshAheadScheduler;
+import com.raphael.WeatherAPI.service.SharedWeatherCache;
+import com.raphael.WeatherAPI.service.WeatherCache;
+import com.raphael.WeatherAPI.service.WeatherService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.List;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class RefreshAheadSchedulerTest {
+
+    @Mock
+    private WeatherService weatherServiceMock;
+
+    private final CityAccessTracker accessTracker = new CityAccessTracker();
+    private final CurrentWeather london = new CurrentWeather("London", 804, 20, 80, 10.0, "Cloudy");
+    private final CurrentWeather paris = new CurrentWeather("Paris", 800, 25, 40, 3.0, "Clear sky");
+
+    private WeatherCache weatherCache;
+
+    @BeforeEach
+    void setUp() {
+        // a lead longer than the ttl makes every cached entry due for a refresh
+        weatherCache = new WeatherCache(new SharedWeatherCache(null, Runnable::run, false, Duration.ofSeconds(1), 500, Duration.ofMinutes(30), Duration.ofHours(1)), true, Duration.ofMinutes(1), Duration.ofMinutes(30), 100, Duration.ofHours(1));
+        weatherCache.getCurrentWeather("London", city -> CompletableFuture.completedFuture(Optional.of(london))).join();
+        weatherCache.getCurrentWeather("Paris", city -> CompletableFuture.completedFuture(Optional.of(paris))).join();
+    }
+
+    @Test
+    void scan_HotCityDueForRefresh_RefreshesOnlyTopCities() {
+        // Given
+        RefreshAheadScheduler refresher = new RefreshAheadScheduler(weatherServiceMock, weatherCache, accessTracker, Runnable::run,
+                false, 1, Duration.ofMinutes(2), Duration.ofSeconds(30), 5);
+        accessTracker.recordAccess("London");
+        accessTracker.recordAccess("London");
+        accessTracker.recordAccess("Paris");
+        when(weatherServiceMock.refreshCurrentWeather("London")).thenReturn(CompletableFuture.completedFuture(true));
+
+        // When
+        refresher.scan();
+        refresher.refreshNext();
+        refresher.refreshNext();
+
+        // Then
+        verify(weatherServiceMock, times(1)).refreshCurrentWeather("London");
+        verify(weatherServiceMock, never()).refreshCurrentWeather("Paris");
+        assertEquals(0, refresher.queueDepth());
+    }
+
+    @Test
+    void scan_EntryNotDueYet_DoesNotQueueIt() {
+        // Given
+        RefreshAheadScheduler refresher = new RefreshAheadScheduler(weatherServiceMock, weatherCache, accessTracker, Runnable::run,
+                false, 10, Duration.ofSeconds(10), Duration.ofSeconds(30), 5);
+        accessTracker.recordAccess("London");
+
+        // When
+        refresher.scan();
+        refresher.refreshNext();
+
+        // Then
+        verify(weatherServiceMock, never()).refreshCurrentWeather(anyString());
+    }
+
+    @Test
+    void refreshNext_QueuedCity_RefreshesOnTheExecutor() {
+        // Given
+        Queue<Runnable> executor = new ArrayDeque<>();
+        RefreshAheadScheduler refresher = new RefreshAheadScheduler(weatherServiceMock, weatherCache, accessTracker, executor::add,
+                false, 1, Duration.ofMinutes(2), Duration.ofSeconds(30), 5);
+        accessTracker.recordAccess("London");
+        when(weatherServiceMock.refreshCurrentWeather("London")).thenReturn(CompletableFuture.completedFuture(true));
+        refresher.scan();
+
+        // When
+        refresher.refreshNext();
+
+        // Then
+        verify(weatherServiceMock, never()).refreshCurrentWeather(anyString());
+        assertEquals(1, executor.size());
+
+        // When
+        executor.poll().run();
+
+        // Then
+        verify(weatherServiceMock).refreshCurrentWeather("London");
+        assertEquals(0, refresher.queueDepth());
+    }
+
+    @Test
+    void refreshCurrentWeather_NewValue_ReplacesCachedEntry() {
+        // Given
+        CurrentWeather rainy = new CurrentWeather("London", 500, 14, 90, 6.0, "Light rain");
+
+        // When
+        boolean replaced = weatherCache.refreshCurrentWeather("London", city -> CompletableFuture.completedFuture(Optional.of(rainy))).join();
+
+        // Then
+        assertTrue(replaced);
+        assertEquals(rainy, weatherCache.peekCurrentWeather("London").orElseThrow().value());
+    }
+
+    @Test
+    void decay_RepeatedWithoutAccess_ForgetsCity() {
+        // Given
+        accessTracker.recordAccess("London");
+        accessTracker.recordAccess("London");
+        accessTracker.recordAccess("London");
+        accessTracker.recordAccess("Paris");
+
+        // When
+        accessTracker.decay();
+
+        // Then
+        assertEquals(List.of("London"), accessTracker.hottest(10));
+    }
+}
@@ -0,0 +1,96 @@
+package com.raphael.WeatherAPI;
+
+import com.raphael.WeatherAPI.configuration.RenderCachingView;
+import com.raphael.WeatherAPI.configuration.RenderedViewCache;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.servlet.View;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class RenderCachingViewTest {
+
+    private final AtomicInteger renders = new AtomicInteger();
+    private final View delegate = (model, request, response) -> {
+        renders.incrementAndGet();
+        response.setContentType("text/html;charset=UTF-8");
+        response.getWriter().write("<p>" + model.get("city") + "</p>");
+    };
+    private final RenderCachingView view = new RenderCachingView("current-weather", delegate,
+            new RenderedViewCache(true, DataSize.ofMegabytes(1), Duration.ofMinutes(1)));
+
+    @Test
+    void render_SameRenderKey_RendersTemplateOnce() throws Exception {
+        // Given
+        Map<String, Object> model = Map.of("city", "Zürich", RenderCachingView.RENDER_KEY, "\"v1\"");
+
+        // When
+        MockHttpServletResponse first = render(model);
+        MockHttpServletResponse second = render(model);
+
+        // Then
+        assertEquals(1, renders.get());
+        assertEquals("<p>Zürich</p>", first.getContentAsString());
+        assertEquals("<p>Zürich</p>", second.getContentAsString());
+        assertEquals("text/html;charset=UTF-8", second.getContentType());
+        assertEquals(second.getContentAsByteArray().length, second.getContentLength());
+    }
+
+    @Test
+    void render_NewRenderKey_RendersTemplateAgain() throws Exception {
+        // When
+        render(Map.of("city", "London", RenderCachingView.RENDER_KEY, "\"v1\""));
+        MockHttpServletResponse response = render(Map.of("city", "Paris", RenderCachingView.RENDER_KEY, "\"v2\""));
+
+        // Then
+        assertEquals(2, renders.get());
+        assertEquals("<p>Paris</p>", response.getContentAsString());
+    }
+
+    @Test
+    void render_NoRenderKey_AlwaysRendersTemplate() throws Exception {
+        // When
+        render(Map.of("city", "London"));
+        render(Map.of("city", "London"));
+
+        // Then
+        assertEquals(2, renders.get());
+    }
+
+    @Test
+    void render_DelegateWritesBytes_CapturesTheOutputStream() throws Exception {
+        // Given
+        View bytesDelegate = (model, request, response) -> {
+            renders.incrementAndGet();
+            response.setContentType("text/html;charset=UTF-8");
+            response.getOutputStream().write(("<p>" + model.get("city") + "</p>").getBytes(StandardCharsets.UTF_8));
+        };
+        RenderCachingView bytesView = new RenderCachingView("current-weather", bytesDelegate,
+                new RenderedViewCache(true, DataSize.ofMegabytes(1), Duration.ofMinutes(1)));
+        Map<String, Object> model = Map.of("city", "Zürich", RenderCachingView.RENDER_KEY, "\"v1\"");
+
+        // When
+        MockHttpServletResponse first = new MockHttpServletResponse();
+        bytesView.render(model, new MockHttpServletRequest(), first);
+        MockHttpServletResponse second = new MockHttpServletResponse();
+        bytesView.render(model, new MockHttpServletRequest(), second);
+
+        // Then
+        assertEquals(1, renders.get());
+        assertEquals("<p>Zürich</p>", first.getContentAsString());
+        assertEquals("<p>Zürich</p>", second.getContentAsString());
+    }
+
+    private MockHttpServletResponse render(Map<String, ?> model) throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        view.render(model, new MockHttpServletRequest(), response);
+        return response;
+    }
+}
@@ -0,0 +1,92 @@
+package com.raphael.WeatherAPI;
+
+import com.raphael.WeatherAPI.service.SingleFlight;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+class SingleFlightTest {
+
+    @Test
+    void execute_ConcurrentCallersForSameKey_ShareOneFetch() throws Exception {
+        // Given
+        int callers = 8;
+        AtomicInteger fetches = new AtomicInteger();
+        AtomicInteger callersServed = new AtomicInteger();
+        CountDownLatch fetchStarted = new CountDownLatch(1);
+        CountDownLatch releaseFetch = new CountDownLatch(1);
+        SingleFlight<String, String> singleFlight = new SingleFlight<>(callersServed::set);
+        ExecutorService executor = Executors.newFixedThreadPool(callers);
+
+        try {
+            // When
+            List<Future<String>> results = new ArrayList<>();
+            results.add(executor.submit(() -> singleFlight.execute("London", () -> {
+                fetches.incrementAndGet();
+                fetchStarted.countDown();
+                await(releaseFetch);
+                return CompletableFuture.completedFuture("Rain");
+            }).join()));
+            fetchStarted.await(5, TimeUnit.SECONDS);
+
+            CountDownLatch callersArrived = new CountDownLatch(callers - 1);
+            for (int i = 1; i < callers; i++) {
+                results.add(executor.submit(() -> {
+                    callersArrived.countDown();
+                    return singleFlight.execute("London", () -> {
+                        fetches.incrementAndGet();
+                        return CompletableFuture.completedFuture("Sun");
+                    }).join();
+                }));
+            }
+            callersArrived.await(5, TimeUnit.SECONDS);
+            Thread.sleep(100); // let the remaining callers join the flight before it completes
+            releaseFetch.countDown();
+
+            // Then
+            for (Future<String> result : results) {
+                Assertions.assertEquals("Rain", result.get(5, TimeUnit.SECONDS));
+            }
+            Assertions.assertEquals(1, fetches.get());
+            Assertions.assertEquals(callers, callersServed.get());
+            Assertions.assertEquals(0, singleFlight.inFlight());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void execute_FetchFails_PropagatesExceptionAndAllowsRetry() {
+        // Given
+        SingleFlight<String, String> singleFlight = new SingleFlight<>(callers -> {});
+
+        // When
+        CompletableFuture<String> failed = singleFlight.execute("London", () -> {
+            throw new IllegalStateException("upstream unavailable");
+        });
+
+        // Then
+        CompletionException exception = Assertions.assertThrows(CompletionException.class, failed::join);
+        Assertions.assertInstanceOf(IllegalStateException.class, exception.getCause());
+        Assertions.assertEquals("Rain", singleFlight.execute("London", () -> CompletableFuture.completedFuture("Rain")).join());
+        Assertions.assertEquals(0, singleFlight.inFlight());
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
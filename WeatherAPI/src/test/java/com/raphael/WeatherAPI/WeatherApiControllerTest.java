@@ -0,0 +1,81 @@
+package com.raphael.WeatherAPI;
+
+import com.raphael.WeatherAPI.controller.WeatherApiController;
+import com.raphael.WeatherAPI.model.CurrentWeather;
+import com.raphael.WeatherAPI.model.Timestamped;
+import com.raphael.WeatherAPI.service.WeatherBatchService;
+import com.raphael.WeatherAPI.service.WeatherService;
+import com.raphael.WeatherAPI.service.WeatherUpdateHub;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+
+import static org.hamcrest.Matchers.*;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@ExtendWith(MockitoExtension.class)
+class WeatherApiControllerTest {
+
+    @Mock
+    private WeatherService weatherServiceMock;
+
+    @Mock
+    private WeatherBatchService batchServiceMock;
+
+    @Mock
+    private WeatherUpdateHub updateHubMock;
+
+    private MockMvc mockMvc;
+
+    private final Timestamped<CurrentWeather> london = Timestamped.of(
+            new CurrentWeather("London", 804, 20, 80, 10.0, "Cloudy"), Instant.now().minusSeconds(120));
+
+    @BeforeEach
+    void setUp() {
+        mockMvc = MockMvcBuilders.standaloneSetup(new WeatherApiController(weatherServiceMock, batchServiceMock, updateHubMock,
+                100, 20, Duration.ofMinutes(30))).build();
+        when(weatherServiceMock.getTimestampedCurrentWeatherAsync("london")).thenReturn(CompletableFuture.completedFuture(Optional.of(london)));
+        when(weatherServiceMock.currentWeatherTtl()).thenReturn(Duration.ofMinutes(10));
+    }
+
+    @Test
+    void getCurrentWeather_WeatherAvailable_ReturnsJsonWithValidators() throws Exception {
+        // When
+        MvcResult result = mockMvc.perform(get("/api/weather/london")).andExpect(request().asyncStarted()).andReturn();
+
+        // Then
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, london.etag()))
+                .andExpect(header().string(HttpHeaders.CACHE_CONTROL, anyOf(is("max-age=480"), is("max-age=479"))))
+                .andExpect(jsonPath("$.location").value("London"))
+                .andExpect(jsonPath("$.temp").value(20));
+    }
+
+    @Test
+    void getCurrentWeather_MatchingIfNoneMatch_ReturnsNotModifiedWithoutBody() throws Exception {
+        // When
+        MvcResult result = mockMvc.perform(get("/api/weather/london").header(HttpHeaders.IF_NONE_MATCH, london.etag()))
+                .andExpect(request().asyncStarted()).andReturn();
+
+        // Then
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, london.etag()))
+                .andExpect(content().string(emptyString()));
+    }
+}
@@ -0,0 +1,61 @@
+package com.raphael.WeatherAPI;
+
+import com.raphael.WeatherAPI.model.CityWeatherResult;
+import com.raphael.WeatherAPI.model.CurrentWeather;
+import com.raphael.WeatherAPI.model.Location;
+import com.raphael.WeatherAPI.service.LocationIndex;
+import com.raphael.WeatherAPI.service.WeatherBatchService;
+import com.raphael.WeatherAPI.service.WeatherService;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class WeatherBatchServiceTest {
+
+    @Mock
+    private WeatherService weatherServiceMock;
+
+    @Mock
+    private LocationIndex locationIndexMock;
+
+    private WeatherBatchService batchService;
+
+    @BeforeEach
+    void setUp() {
+        batchService = new WeatherBatchService(weatherServiceMock, locationIndexMock, Runnable::run, 4);
+        when(locationIndexMock.isReady()).thenReturn(true);
+    }
+
+    @Test
+    void getCurrentWeather_MixedCities_ReturnsPartialResultsInRequestOrder() {
+        // Given
+        CurrentWeather london = new CurrentWeather("London", 804, 20, 80, 10.0, "Cloudy");
+        when(locationIndexMock.find(anyString())).thenReturn(Optional.empty());
+        when(locationIndexMock.find("London")).thenReturn(Optional.of(new Location.Coordinates(51.50853, -0.12574)));
+        when(locationIndexMock.find("Paris")).thenReturn(Optional.of(new Location.Coordinates(48.85341, 2.3488)));
+        when(locationIndexMock.similar("Par1s", 3)).thenReturn(List.of("Paris"));
+        when(weatherServiceMock.getCurrentWeatherAsync("London")).thenReturn(CompletableFuture.completedFuture(Optional.of(london)));
+        when(weatherServiceMock.getCurrentWeatherAsync("Paris")).thenReturn(CompletableFuture.completedFuture(Optional.empty()));
+
+        // When
+        List<CityWeatherResult> results = batchService.getCurrentWeather(List.of("london", "Par1s", "LONDON", "paris", " ")).join();
+
+        // Then
+        Assertions.assertEquals(List.of(
+                CityWeatherResult.of("London", london),
+                CityWeatherResult.error("Par1s", "Unknown location, did you mean: Paris?"),
+                CityWeatherResult.error("Paris", "Weather information not available for the specified location")), results);
+        verify(weatherServiceMock, times(1)).getCurrentWeatherAsync("London");
+        verify(weatherServiceMock, never()).getCurrentWeatherAsync("Par1s");
+    }
+}
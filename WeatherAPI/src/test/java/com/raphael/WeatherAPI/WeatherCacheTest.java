@@ -0,0 +1,138 @@
+package com.raphael.WeatherAPI;
+
+import com.raphael.WeatherAPI.model.CurrentWeather;
+import com.raphael.WeatherAPI.model.Timestamped;
+import com.raphael.WeatherAPI.service.SharedWeatherCache;
+import com.raphael.WeatherAPI.service.WeatherCache;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class WeatherCacheTest {
+
+    private final CurrentWeather cloudy = new CurrentWeather("London", 804, 20, 80, 10.0, "Cloudy");
+    private final CurrentWeather rainy = new CurrentWeather("London", 500, 14, 90, 6.0, "Light rain");
+    private final AtomicInteger loads = new AtomicInteger();
+
+    private WeatherCache weatherCache;
+
+    @BeforeEach
+    void setUp() throws InterruptedException {
+        // entries turn stale after a millisecond and are kept for an hour after that
+        weatherCache = new WeatherCache(new SharedWeatherCache(null, Runnable::run, false, Duration.ofSeconds(1), 500, Duration.ofMinutes(30), Duration.ofHours(1)), true, Duration.ofMillis(1), Duration.ofMillis(1), 100, Duration.ofHours(1));
+        weatherCache.getCurrentWeather("London", city -> CompletableFuture.completedFuture(Optional.of(cloudy))).join();
+        Thread.sleep(5);
+    }
+
+    @Test
+    void getCurrentWeather_StaleEntry_ServedWhileRevalidated() {
+        // When
+        Optional<Timestamped<CurrentWeather>> served = weatherCache.getCurrentWeather("London", city -> {
+            loads.incrementAndGet();
+            return CompletableFuture.completedFuture(Optional.of(rainy));
+        }).join();
+
+        // Then
+        assertEquals(cloudy, served.orElseThrow().value());
+        assertEquals(1, loads.get());
+        assertEquals(rainy, weatherCache.peekCurrentWeather("London").orElseThrow().value());
+    }
+
+    @Test
+    void getCurrentWeather_StaleEntryAndUpstreamFailing_KeepsServingStaleEntry() {
+        // When
+        Optional<Timestamped<CurrentWeather>> first = weatherCache.getCurrentWeather("London",
+                city -> CompletableFuture.failedFuture(new IllegalStateException("Service unavailable"))).join();
+        Optional<Timestamped<CurrentWeather>> second = weatherCache.getCurrentWeather("London",
+                city -> CompletableFuture.completedFuture(Optional.empty())).join();
+
+        // Then
+        assertEquals(cloudy, first.orElseThrow().value());
+        assertEquals(cloudy, second.orElseThrow().value());
+        assertTrue(second.get().isStale(weatherCache.currentTtl()));
+    }
+
+    @Test
+    void getCurrentWeather_SharedEntryNearMaxStale_ExpiresWithItsFetchTime() throws InterruptedException {
+        // Given
+        SharedWeatherCache sharedCache = mock(SharedWeatherCache.class);
+        Timestamped<CurrentWeather> shared = Timestamped.of(rainy, Instant.now().minus(Duration.ofMinutes(70)).plusMillis(100));
+        when(sharedCache.getCurrentWeather(eq("London"), any())).thenReturn(CompletableFuture.completedFuture(Optional.of(shared)));
+        WeatherCache cache = new WeatherCache(sharedCache, true, Duration.ofMinutes(10), Duration.ofMinutes(30), 100, Duration.ofHours(1));
+        cache.getCurrentWeather("London", city -> CompletableFuture.completedFuture(Optional.of(cloudy))).join();
+
+        // When
+        Thread.sleep(200);
+
+        // Then
+        assertTrue(cache.peekCurrentWeather("London").isEmpty());
+    }
+
+    @Test
+    void getCurrentWeather_FreshSharedEntry_UsedInsteadOfLoader() {
+        // Given
+        SharedWeatherCache sharedCache = mock(SharedWeatherCache.class);
+        Timestamped<CurrentWeather> shared = Timestamped.of(rainy, Instant.now().minusSeconds(60));
+        when(sharedCache.getCurrentWeather(eq("London"), any())).thenReturn(CompletableFuture.completedFuture(Optional.of(shared)));
+        WeatherCache cache = new WeatherCache(sharedCache, true, Duration.ofMinutes(10), Duration.ofMinutes(30), 100, Duration.ofHours(1));
+
+        // When
+        Optional<Timestamped<CurrentWeather>> served = cache.getCurrentWeather("London", city -> {
+            loads.incrementAndGet();
+            return CompletableFuture.completedFuture(Optional.of(cloudy));
+        }).join();
+
+        // Then
+        assertEquals(shared, served.orElseThrow());
+        assertEquals(0, loads.get());
+        verify(sharedCache, never()).putCurrentWeather(anyString(), any());
+    }
+
+    @Test
+    void getCurrentWeather_NoSharedEntry_LoadsAndSharesValue() {
+        // Given
+        SharedWeatherCache sharedCache = mock(SharedWeatherCache.class);
+        when(sharedCache.getCurrentWeather(eq("London"), any())).thenReturn(CompletableFuture.completedFuture(Optional.empty()));
+        WeatherCache cache = new WeatherCache(sharedCache, true, Duration.ofMinutes(10), Duration.ofMinutes(30), 100, Duration.ofHours(1));
+
+        // When
+        Optional<Timestamped<CurrentWeather>> served = cache.getCurrentWeather("London",
+                city -> CompletableFuture.completedFuture(Optional.of(cloudy))).join();
+
+        // Then
+        assertEquals(cloudy, served.orElseThrow().value());
+        verify(sharedCache).putCurrentWeather("London", served.get());
+    }
+
+    @Test
+    void getCurrentWeather_RevalidationInFlight_StartsNoSecondOne() {
+        // Given
+        CompletableFuture<Optional<CurrentWeather>> upstream = new CompletableFuture<>();
+
+        // When
+        weatherCache.getCurrentWeather("London", city -> {
+            loads.incrementAndGet();
+            return upstream;
+        }).join();
+        weatherCache.getCurrentWeather("London", city -> {
+            loads.incrementAndGet();
+            return upstream;
+        }).join();
+        upstream.complete(Optional.of(rainy));
+
+        // Then
+        assertEquals(1, loads.get());
+        assertEquals(rainy, weatherCache.peekCurrentWeather("London").orElseThrow().value());
+    }
+}
@@ -1,7 +1,9 @@
 package com.raphael.WeatherAPI;
 
+import com.raphael.WeatherAPI.configuration.RenderCachingView;
 import com.raphael.WeatherAPI.controller.WeatherController;
 import com.raphael.WeatherAPI.model.CurrentWeather;
+import com.raphael.WeatherAPI.model.Timestamped;
 import com.raphael.WeatherAPI.model.WeatherForecast;
 import com.raphael.WeatherAPI.service.WeatherService;
 import org.junit.jupiter.api.Test;
@@ -12,8 +14,11 @@ import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.ui.ExtendedModelMap;
 import org.springframework.ui.Model;
 
+import java.time.Duration;
+import java.time.Instant;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
@@ -33,26 +38,49 @@ class WeatherControllerTest {
         // Given
         String location = "London";
         CurrentWeather currentWeather = new CurrentWeather(location, 804, 20, 80, 10.0, "Cloudy");
-        when(weatherServiceMock.getCurrentWeather(location)).thenReturn(Optional.of(currentWeather)); // mock that when the weatherService.getCurrentWeather("London") method is called, thenReturn our created currentWeather object
+        Timestamped<CurrentWeather> entry = Timestamped.of(currentWeather, Instant.now());
+        when(weatherServiceMock.getTimestampedCurrentWeatherAsync(location)).thenReturn(CompletableFuture.completedFuture(Optional.of(entry)));
+        when(weatherServiceMock.currentWeatherTtl()).thenReturn(Duration.ofMinutes(10)); // mock that when the weatherService.getCurrentWeather("London") method is called, thenReturn our created currentWeather object
         Model model = new ExtendedModelMap(); // create a model that we need to pass to the controller
 
         // When
-        String viewName = weatherController.getCurrentWeatherFromLocation(location, model); // this Controller method will reach into the weatherService and internally call the getCurrentWeather method... Instead of actually calling the real service method and going to the external API, we will pass what is returned from our mock instead. That is why we do @InjectMocks on our weatherController field, to inject the @Mock (our weatherService) into it, and use that mock instead of the real Service layer.
+        String viewName = weatherController.getCurrentWeatherFromLocation(location, model).join(); // this Controller method will reach into the weatherService and internally call the getCurrentWeather method... Instead of actually calling the real service method and going to the external API, we will pass what is returned from our mock instead. That is why we do @InjectMocks on our weatherController field, to inject the @Mock (our weatherService) into it, and use that mock instead of the real Service layer.
 
         // Then
         assertEquals("current-weather", viewName);
         assertEquals(currentWeather, model.getAttribute("currentWeather"));
+        assertEquals(entry.etag(), model.getAttribute(RenderCachingView.RENDER_KEY));
+        assertEquals(false, model.getAttribute("stale"));
     }
 
     @Test
     void getCurrentWeatherFromLocation_WeatherNotAvailable_ThrowsException() throws Exception {
         // Arrange
         String location = "Par1s";
-        when(weatherServiceMock.getCurrentWeather(location)).thenReturn(Optional.empty());
+        when(weatherServiceMock.getTimestampedCurrentWeatherAsync(location)).thenReturn(CompletableFuture.completedFuture(Optional.empty()));
         Model model = new ExtendedModelMap();
 
         // Act and Assert
-        assertThrows(Exception.class, () -> weatherController.getCurrentWeatherFromLocation(location, model));
+        assertThrows(Exception.class, () -> weatherController.getCurrentWeatherFromLocation(location, model).join());
+    }
+
+    @Test
+    void getCurrentWeatherNearCoordinates_WeatherAvailable_ReturnsCurrentWeatherPage() {
+        // Given
+        CurrentWeather currentWeather = new CurrentWeather("London", 804, 20, 80, 10.0, "Cloudy");
+        Timestamped<CurrentWeather> entry = Timestamped.of(currentWeather, Instant.now().minus(Duration.ofMinutes(15)));
+        when(weatherServiceMock.getCurrentWeatherNearAsync(51.5, -0.1)).thenReturn(CompletableFuture.completedFuture(Optional.of(entry)));
+        when(weatherServiceMock.currentWeatherTtl()).thenReturn(Duration.ofMinutes(10));
+        Model model = new ExtendedModelMap();
+
+        // When
+        String viewName = weatherController.getCurrentWeatherNearCoordinates(51.5, -0.1, model).join();
+
+        // Then
+        assertEquals("current-weather", viewName);
+        assertEquals(currentWeather, model.getAttribute("currentWeather"));
+        assertEquals(entry.etag() + "-stale", model.getAttribute(RenderCachingView.RENDER_KEY));
+        assertEquals(true, model.getAttribute("stale"));
     }
 
     @Test
@@ -61,11 +89,11 @@ class WeatherControllerTest {
         String location = "London";
         WeatherForecast weatherForecast = new WeatherForecast("London", "Mon", 804, 20, 80, 10.0, "Cloudy");
         List<WeatherForecast> weatherForecastList = List.of(weatherForecast);
-        when(weatherServiceMock.getWeatherForecast(location)).thenReturn(weatherForecastList); // mock that when the weatherService.getCurrentWeather("London") method is called, thenReturn our created currentWeather object
+        when(weatherServiceMock.getTimestampedWeatherForecastAsync(location)).thenReturn(CompletableFuture.completedFuture(Optional.of(Timestamped.of(weatherForecastList, Instant.now())))); // mock that when the weatherService.getCurrentWeather("London") method is called, thenReturn our created currentWeather object
         Model model = new ExtendedModelMap(); // create a model that we need to pass to the controller
 
         // When
-        String viewName = weatherController.getForecastFromLocation(location, model); // this Controller method will reach into the weatherService and internally call the getWeatherForecast method... Instead of actually calling the real service method and going to the external API, we will pass what is returned from our mock instead. That is why we do @InjectMocks on our weatherController field, to inject the @Mock (our weatherService) into it, and use that mock instead of the real Service layer.
+        String viewName = weatherController.getForecastFromLocation(location, model).join(); // this Controller method will reach into the weatherService and internally call the getWeatherForecast method... Instead of actually calling the real service method and going to the external API, we will pass what is returned from our mock instead. That is why we do @InjectMocks on our weatherController field, to inject the @Mock (our weatherService) into it, and use that mock instead of the real Service layer.
 
         // Then
         assertEquals("forecast-weather", viewName);
@@ -0,0 +1,220 @@
+package com.raphael.WeatherAPI;
+
+import com.raphael.WeatherAPI.model.CurrentWeather;
+import com.raphael.WeatherAPI.model.Location;
+import com.raphael.WeatherAPI.model.Timestamped;
+import com.raphael.WeatherAPI.service.LocationIndex;
+import com.raphael.WeatherAPI.service.WeatherService;
+import com.raphael.WeatherAPI.service.WeatherUpdateHub;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class WeatherUpdateHubTest {
+
+    @Mock
+    private WeatherService weatherServiceMock;
+
+    @Mock
+    private LocationIndex locationIndexMock;
+
+    private WeatherUpdateHub hub;
+
+    private final CurrentWeather london = new CurrentWeather("London", 804, 20, 80, 10.0, "Cloudy");
+
+    @BeforeEach
+    void setUp() {
+        // refreshes and updates run on the calling thread so the sinks can be checked right away
+        hub = new WeatherUpdateHub(weatherServiceMock, locationIndexMock, Runnable::run, Runnable::run, 2, Duration.ofMinutes(10), Duration.ofMinutes(10));
+        lenient().when(locationIndexMock.isReady()).thenReturn(true);
+        lenient().when(locationIndexMock.find(anyString())).thenReturn(Optional.empty());
+        lenient().when(locationIndexMock.find("London")).thenReturn(Optional.of(new Location.Coordinates(51.5, -0.1)));
+        lenient().when(weatherServiceMock.currentWeatherTtl()).thenReturn(Duration.ofMinutes(10));
+    }
+
+    @AfterEach
+    void tearDown() {
+        hub.shutdown();
+    }
+
+    @Test
+    void subscribe_TwoClientsSameCity_FetchesOnceAndPushesToBoth() {
+        // Given
+        CompletableFuture<Optional<Timestamped<CurrentWeather>>> upstream = new CompletableFuture<>();
+        when(weatherServiceMock.getTimestampedCurrentWeatherAsync("London")).thenReturn(upstream);
+        RecordingSink first = new RecordingSink();
+        RecordingSink second = new RecordingSink();
+
+        // When
+        hub.subscribe(List.of("london"), first);
+        hub.subscribe(List.of("LONDON"), second);
+        upstream.complete(Optional.of(Timestamped.of(london, Instant.now())));
+
+        // Then
+        verify(weatherServiceMock, times(1)).getTimestampedCurrentWeatherAsync("London");
+        assertEquals(List.of(london), first.received);
+        assertEquals(List.of(london), second.received);
+        assertEquals(1, hub.watchedCityCount());
+    }
+
+    @Test
+    void subscribe_CityAlreadyWatched_SendsLatestValueRightAway() {
+        // Given
+        when(weatherServiceMock.getTimestampedCurrentWeatherAsync("London"))
+                .thenReturn(CompletableFuture.completedFuture(Optional.of(Timestamped.of(london, Instant.now()))));
+        hub.subscribe(List.of("London"), new RecordingSink());
+        RecordingSink late = new RecordingSink();
+
+        // When
+        hub.subscribe(List.of("London"), late);
+
+        // Then
+        assertEquals(List.of(london), late.received);
+        verify(weatherServiceMock, times(1)).getTimestampedCurrentWeatherAsync("London");
+    }
+
+    @Test
+    void cancel_LastSubscriber_StopsWatchingCity() {
+        // Given
+        when(weatherServiceMock.getTimestampedCurrentWeatherAsync("London")).thenReturn(new CompletableFuture<>());
+        WeatherUpdateHub.Subscription subscription = hub.subscribe(List.of("London"), new RecordingSink()).orElseThrow();
+
+        // When
+        subscription.cancel();
+
+        // Then
+        assertEquals(0, hub.subscriberCount());
+        assertEquals(0, hub.watchedCityCount());
+    }
+
+    @Test
+    void subscribe_UnknownCity_ThrowsIllegalArgumentException() {
+        assertThrows(IllegalArgumentException.class, () -> hub.subscribe(List.of("Par1s"), new RecordingSink()));
+        assertEquals(0, hub.subscriberCount());
+    }
+
+    @Test
+    void subscribe_MaxSubscribersReached_ReturnsEmpty() {
+        // Given
+        when(weatherServiceMock.getTimestampedCurrentWeatherAsync("London")).thenReturn(new CompletableFuture<>());
+        hub.subscribe(List.of("London"), new RecordingSink());
+        hub.subscribe(List.of("London"), new RecordingSink());
+
+        // When
+        Optional<WeatherUpdateHub.Subscription> subscription = hub.subscribe(List.of("London"), new RecordingSink());
+
+        // Then
+        assertTrue(subscription.isEmpty());
+        assertEquals(2, hub.subscriberCount());
+    }
+
+    @Test
+    void subscribe_RaceForTheLastSlots_NeverExceedsMaxSubscribers() throws Exception {
+        // Given
+        when(weatherServiceMock.getTimestampedCurrentWeatherAsync("London")).thenReturn(new CompletableFuture<>());
+        int clients = 8;
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService threads = Executors.newFixedThreadPool(clients);
+        List<Future<Optional<WeatherUpdateHub.Subscription>>> subscriptions = new ArrayList<>();
+
+        // When
+        for (int i = 0; i < clients; i++) {
+            subscriptions.add(threads.submit(() -> {
+                start.await();
+                return hub.subscribe(List.of("London"), new RecordingSink());
+            }));
+        }
+        start.countDown();
+        int accepted = 0;
+        for (Future<Optional<WeatherUpdateHub.Subscription>> subscription : subscriptions) {
+            accepted += subscription.get(5, TimeUnit.SECONDS).isPresent() ? 1 : 0;
+        }
+        threads.shutdown();
+
+        // Then
+        assertEquals(2, accepted);
+        assertEquals(2, hub.subscriberCount());
+    }
+
+    @Test
+    void refresh_RunsOnTheRefreshExecutor() {
+        // Given
+        List<Runnable> refreshes = new ArrayList<>();
+        hub.shutdown();
+        hub = new WeatherUpdateHub(weatherServiceMock, locationIndexMock, refreshes::add, Runnable::run, 2, Duration.ofMinutes(10), Duration.ofMinutes(10));
+        when(weatherServiceMock.getTimestampedCurrentWeatherAsync("London"))
+                .thenReturn(CompletableFuture.completedFuture(Optional.of(Timestamped.of(london, Instant.now()))));
+        RecordingSink sink = new RecordingSink();
+
+        // When
+        hub.subscribe(List.of("London"), sink);
+
+        // Then
+        verify(weatherServiceMock, never()).getTimestampedCurrentWeatherAsync(anyString());
+        assertEquals(1, refreshes.size());
+        refreshes.get(0).run();
+        assertEquals(List.of(london), sink.received);
+    }
+
+    @Test
+    void send_ClientGone_ClosesTheStreamAndFreesTheSlot() {
+        // Given
+        when(weatherServiceMock.getTimestampedCurrentWeatherAsync("London"))
+                .thenReturn(CompletableFuture.completedFuture(Optional.of(Timestamped.of(london, Instant.now()))));
+        RecordingSink gone = new RecordingSink();
+        gone.failing = true;
+
+        // When
+        hub.subscribe(List.of("London"), gone);
+
+        // Then
+        assertTrue(gone.closed);
+        assertEquals(0, hub.subscriberCount());
+        assertTrue(hub.subscribe(List.of("London"), new RecordingSink()).isPresent());
+    }
+
+    private static class RecordingSink implements WeatherUpdateHub.Sink {
+
+        private final List<CurrentWeather> received = new ArrayList<>();
+        private boolean failing;
+        private boolean closed;
+
+        @Override
+        public void send(CurrentWeather currentWeather) throws IOException {
+            if (failing) {
+                throw new IOException("Broken pipe");
+            }
+            received.add(currentWeather);
+        }
+
+        @Override
+        public void heartbeat() {
+        }
+
+        @Override
+        public void close() {
+            closed = true;
+        }
+    }
+}
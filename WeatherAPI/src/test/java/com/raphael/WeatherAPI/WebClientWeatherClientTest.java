@@ -0,0 +1,128 @@
+package com.raphael.WeatherAPI;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.raphael.WeatherAPI.model.Location;
+import com.raphael.WeatherAPI.model.response.CurrentWeatherResponse;
+import com.raphael.WeatherAPI.model.response.MainResponse;
+import com.raphael.WeatherAPI.model.response.WeatherForecastResponse;
+import com.raphael.WeatherAPI.service.OpenWeatherMapDecoder;
+import com.raphael.WeatherAPI.service.OpenWeatherMapUris;
+import com.raphael.WeatherAPI.service.WebClientWeatherClient;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+class WebClientWeatherClientTest {
+
+    private static final Location.Coordinates LONDON = new Location.Coordinates(51.5085, -0.1257);
+    private static final String FORECAST_ENTRY = "{\"dt\":1687024800,\"main\":{\"temp\":297.24,\"humidity\":54},\"weather\":[{\"id\":500,\"description\":\"light rain\"}],\"wind\":{\"speed\":3.9}}";
+
+    @Test
+    void fetchCurrentWeather_BodyInSmallBuffers_DecodesTheWholeBody() throws Exception {
+        // Given
+        String json = "{\"weather\":[{\"id\":803,\"description\":\"broken clouds\"}],\"main\":{\"temp\":289.92,\"humidity\":72},\"wind\":{\"speed\":4},\"name\":\"London\"}";
+        Flux<DataBuffer> body = Flux.fromArray(json.split("(?<=,)")).map(WebClientWeatherClientTest::buffer);
+        WebClientWeatherClient client = client(HttpStatus.OK, body);
+
+        // When
+        CurrentWeatherResponse response = client.fetchCurrentWeather(LONDON).get(5, TimeUnit.SECONDS);
+
+        // Then
+        Assertions.assertEquals(new MainResponse(289.92, 72), response.main());
+    }
+
+    @Test
+    void fetchWeatherForecast_EntriesSplitAcrossBuffers_DecodesEveryEntry() throws Exception {
+        // Given
+        String json = "{\"cod\":\"200\",\"list\":[" + FORECAST_ENTRY + "," + FORECAST_ENTRY.replace("1687024800", "1687035600")
+                + "],\"city\":{\"name\":\"London\"}}";
+        Flux<DataBuffer> body = Flux.fromArray(json.split("(?<=\\G.{7})")).map(WebClientWeatherClientTest::buffer);
+        WebClientWeatherClient client = client(HttpStatus.OK, body);
+
+        // When
+        List<Long> dates = client.fetchWeatherForecast(LONDON, WeatherForecastResponse::date, 5).get(5, TimeUnit.SECONDS);
+
+        // Then
+        Assertions.assertEquals(List.of(1687024800L, 1687035600L), dates);
+    }
+
+    @Test
+    void fetchWeatherForecast_BodyTruncated_Fails() {
+        // Given
+        WebClientWeatherClient client = client(HttpStatus.OK, Flux.just(buffer("{\"list\":[" + FORECAST_ENTRY)));
+
+        // When
+        CompletionException thrown = Assertions.assertThrows(CompletionException.class,
+                () -> client.fetchWeatherForecast(LONDON, WeatherForecastResponse::date, 5).join());
+
+        // Then
+        Assertions.assertInstanceOf(IOException.class, thrown.getCause());
+    }
+
+    @Test
+    void fetchWeatherForecast_LimitReached_CancelsTheDownload() throws Exception {
+        // Given
+        AtomicBoolean cancelled = new AtomicBoolean();
+        // a body that never ends, only an early stop lets the call complete
+        Flux<DataBuffer> body = Flux.just("{\"list\":[" + FORECAST_ENTRY)
+                .concatWith(Flux.<String>generate(sink -> sink.next("," + FORECAST_ENTRY)))
+                .map(WebClientWeatherClientTest::buffer)
+                .doOnCancel(() -> cancelled.set(true));
+        WebClientWeatherClient client = client(HttpStatus.OK, body);
+
+        // When
+        List<Long> dates = client.fetchWeatherForecast(LONDON, WeatherForecastResponse::date, 3).get(5, TimeUnit.SECONDS);
+
+        // Then
+        Assertions.assertEquals(List.of(1687024800L, 1687024800L, 1687024800L), dates);
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!cancelled.get() && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        Assertions.assertTrue(cancelled.get());
+    }
+
+    @Test
+    void fetchCurrentWeather_UpstreamError_FailsWithTheResponseException() {
+        // Given
+        WebClientWeatherClient client = client(HttpStatus.SERVICE_UNAVAILABLE, Flux.just(buffer("{\"cod\":503}")));
+
+        // When
+        CompletionException thrown = Assertions.assertThrows(CompletionException.class,
+                () -> client.fetchCurrentWeather(LONDON).join());
+
+        // Then
+        Assertions.assertInstanceOf(WebClientResponseException.ServiceUnavailable.class, thrown.getCause());
+    }
+
+    private static WebClientWeatherClient client(HttpStatus status, Flux<DataBuffer> body) {
+        WebClient webClient = WebClient.builder()
+                .exchangeFunction(request -> Mono.just(ClientResponse.create(status)
+                        .header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+                        .body(body)
+                        .build()))
+                .build();
+        return new WebClientWeatherClient(webClient, new OpenWeatherMapDecoder(new ObjectMapper()),
+                new OpenWeatherMapUris("http://localhost", "key"));
+    }
+
+    private static DataBuffer buffer(String chunk) {
+        return DefaultDataBufferFactory.sharedInstance.wrap(chunk.getBytes(StandardCharsets.UTF_8));
+    }
+}
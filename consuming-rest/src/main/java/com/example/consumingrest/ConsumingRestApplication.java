@@ -1,12 +1,24 @@
 package com.example.consumingrest;
 
+import java.time.Duration;
+
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
+import org.apache.hc.core5.http.io.SocketConfig;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.CommandLineRunner;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.boot.web.client.RestTemplateBuilder;
 import org.springframework.context.annotation.Bean;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
 import org.springframework.web.client.RestTemplate;
 
 @SpringBootApplication
@@ -19,10 +31,36 @@ public class ConsumingRestApplication {
 		SpringApplication.run(ConsumingRestApplication.class, args);
 	}
 
+	@Bean(destroyMethod = "close")
+	public CloseableHttpClient httpClient(@Value("${http.client.max-connections:50}") int maxConnections,
+			@Value("${http.client.max-connections-per-route:20}") int maxConnectionsPerRoute,
+			@Value("${http.client.connect-timeout:2s}") Duration connectTimeout,
+			@Value("${http.client.connection-request-timeout:1s}") Duration connectionRequestTimeout,
+			@Value("${http.client.read-timeout:10s}") Duration readTimeout,
+			@Value("${http.client.idle-eviction:30s}") Duration idleEviction) {
+		// pooled keep-alive connections instead of a new connection per request
+		PoolingHttpClientConnectionManager connectionManager = PoolingHttpClientConnectionManagerBuilder.create()
+				.setMaxConnTotal(maxConnections)
+				.setMaxConnPerRoute(maxConnectionsPerRoute)
+				.setDefaultSocketConfig(SocketConfig.custom().setSoTimeout(Timeout.ofMilliseconds(readTimeout.toMillis())).build())
+				.build();
+
+		return HttpClients.custom()
+				.setConnectionManager(connectionManager)
+				.setDefaultRequestConfig(RequestConfig.custom()
+						.setConnectTimeout(Timeout.ofMilliseconds(connectTimeout.toMillis()))
+						.setConnectionRequestTimeout(Timeout.ofMilliseconds(connectionRequestTimeout.toMillis()))
+						.setResponseTimeout(Timeout.ofMilliseconds(readTimeout.toMillis()))
+						.build())
+				.evictExpiredConnections()
+				.evictIdleConnections(TimeValue.ofMilliseconds(idleEviction.toMillis()))
+				.build();
+	}
+
 	@Bean
-	public RestTemplate restTemplate(RestTemplateBuilder builder) {
+	public RestTemplate restTemplate(RestTemplateBuilder builder, CloseableHttpClient httpClient) {
 		// when this method is called, it will return a built restTemplate...
-		return builder.build();
+		return builder.requestFactory(() -> new HttpComponentsClientHttpRequestFactory(httpClient)).build();
 	}
 
 	@Bean
@@ -0,0 +1,104 @@
+/*
+ * Copyright 2014-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.quoters;
+
+import java.io.IOException;
+import java.io.Reader;
+
+/**
+ * Minimal RFC 4180 reader returning the first field of each record. Quoted fields may contain commas, line breaks
+ * and doubled quotes, the remaining fields of a record are skipped and blank lines are ignored.
+ */
+class CsvQuoteReader {
+
+	private final Reader reader;
+	private final StringBuilder field = new StringBuilder();
+	private long recordNumber;
+
+	CsvQuoteReader(Reader reader) {
+		this.reader = reader;
+	}
+
+	/**
+	 * @return the first field of the next record, or null at the end of the input
+	 */
+	String next() throws IOException {
+		int c = read();
+		while (c == '\r' || c == '\n') {
+			c = read();
+		}
+		if (c == -1) {
+			return null;
+		}
+		recordNumber++;
+		field.setLength(0);
+		if (c == '"') {
+			c = readQuoted();
+		}
+		else {
+			while (c != ',' && c != '\r' && c != '\n' && c != -1) {
+				field.append((char) c);
+				c = read();
+			}
+		}
+		String first = field.toString();
+		skipRestOfRecord(c);
+		return first;
+	}
+
+	/**
+	 * @return the number of the record last returned by {@link #next()}, starting at 1
+	 */
+	long recordNumber() {
+		return recordNumber;
+	}
+
+	/**
+	 * Reads a quoted field after its opening quote.
+	 *
+	 * @return the character following the closing quote
+	 */
+	private int readQuoted() throws IOException {
+		while (true) {
+			int c = read();
+			if (c == -1) {
+				throw new IllegalArgumentException("Record " + recordNumber + " has an unterminated quoted field");
+			}
+			if (c == '"') {
+				int after = read();
+				if (after != '"') {
+					return after;
+				}
+			}
+			field.append((char) c);
+		}
+	}
+
+	private void skipRestOfRecord(int c) throws IOException {
+		boolean quoted = false;
+		while (c != -1 && (quoted || (c != '\r' && c != '\n'))) {
+			if (c == '"') {
+				quoted = !quoted;
+			}
+			c = read();
+		}
+	}
+
+	private int read() throws IOException {
+		return reader.read();
+	}
+}
@@ -0,0 +1,66 @@
+/*
+ * Copyright 2014-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.quoters;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.util.DigestUtils;
+
+/**
+ * A JSON document encoded once as UTF-8 bytes, served as is with its length and a strong ETag derived from its
+ * content. Instances are shared between requests, the bytes must not be modified.
+ */
+final class JsonBody {
+
+	private final byte[] bytes;
+	private final String etag;
+
+	private JsonBody(byte[] bytes) {
+		this.bytes = bytes;
+		this.etag = "\"" + DigestUtils.md5DigestAsHex(bytes) + "\"";
+	}
+
+	static JsonBody of(byte[] bytes) {
+		return new JsonBody(bytes);
+	}
+
+	String getEtag() {
+		return etag;
+	}
+
+	int length() {
+		return bytes.length;
+	}
+
+	void writeTo(OutputStream out) throws IOException {
+		out.write(bytes);
+	}
+
+	/**
+	 * @return a response writing the bytes unchanged, answered with 304 when the client already has this ETag
+	 */
+	ResponseEntity<byte[]> toResponse() {
+		return ResponseEntity.ok()
+			.contentType(MediaType.APPLICATION_JSON)
+			.contentLength(bytes.length)
+			.eTag(etag)
+			.body(bytes);
+	}
+}
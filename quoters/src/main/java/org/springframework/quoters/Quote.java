@@ -19,13 +19,21 @@ package org.springframework.quoters;
 import java.util.Objects;
 
 import javax.persistence.Entity;
+import javax.persistence.EntityListeners;
 import javax.persistence.GeneratedValue;
+import javax.persistence.GenerationType;
 import javax.persistence.Id;
+import javax.persistence.SequenceGenerator;
 
 @Entity
+@EntityListeners(QuoteEntityListener.class)
 class Quote {
 
-	@Id @GeneratedValue private Long id;
+	// a pooled sequence hands out 50 ids per round trip and, unlike identity columns, lets Hibernate batch inserts
+	@Id
+	@GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "quote_seq")
+	@SequenceGenerator(name = "quote_seq", sequenceName = "quote_seq", allocationSize = 50)
+	private Long id;
 	private String quote;
 
 	Quote(String quote) {
@@ -16,48 +16,168 @@
 
 package org.springframework.quoters;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.Random;
+import java.util.Map;
+import java.util.Optional;
 import java.util.stream.Collectors;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
 @RestController
 public class QuoteController {
 
 	private final static Quote NONE = new Quote("None");
-	private final static Random RANDOMIZER = new Random();
+	private final static int DEFAULT_PAGE_SIZE = 100;
+	private final static int MAX_PAGE_SIZE = 1000;
 
 	private final QuoteRepository repository;
+	private final QuoteSnapshot snapshot;
+	private final QuoteExporter exporter;
+	private final QuoteResourceCache cache;
+	private final QuoteImporter importer;
 
-	public QuoteController(QuoteRepository repository) {
+	public QuoteController(QuoteRepository repository, QuoteSnapshot snapshot, QuoteExporter exporter,
+			QuoteResourceCache cache, QuoteImporter importer) {
 		this.repository = repository;
+		this.snapshot = snapshot;
+		this.exporter = exporter;
+		this.cache = cache;
+		this.importer = importer;
 	}
 
+	/**
+	 * Returns every quote, as a JSON array or, when the client accepts {@code application/x-ndjson}, one quote per line.
+	 * The array is served pre-encoded while the table is small and streamed otherwise.
+	 */
+	@GetMapping(path = "/api", params = { "!after", "!limit" })
+	public ResponseEntity<StreamingResponseBody> getAll(
+			@RequestHeader(name = HttpHeaders.ACCEPT, required = false) String accept, WebRequest request)
+			throws IOException {
+
+		if (acceptsNdjson(accept)) {
+			return ResponseEntity.ok()
+				.contentType(MediaType.APPLICATION_NDJSON)
+				.body(exporter::writeNdjson);
+		}
+		Optional<JsonBody> cached = exporter.cachedJsonArray();
+		if (cached.isPresent()) {
+			// the return type has to stay a streaming body, so the conditional request, which also sets the ETag,
+			// is checked here
+			JsonBody body = cached.get();
+			if (request.checkNotModified(body.getEtag())) {
+				return ResponseEntity.status(HttpStatus.NOT_MODIFIED).build();
+			}
+			return ResponseEntity.ok()
+				.contentType(MediaType.APPLICATION_JSON)
+				.contentLength(body.length())
+				.body(body::writeTo);
+		}
+		return ResponseEntity.ok()
+			.contentType(MediaType.APPLICATION_JSON)
+			.body(exporter::writeJsonArray);
+	}
+
+	/**
+	 * Returns up to {@code limit} quotes with an id greater than {@code after}. When the page is full, the
+	 * {@code Link} header points to the next one.
+	 */
 	@GetMapping("/api")
-	public List<QuoteResource> getAll() {
+	public ResponseEntity<List<QuoteResource>> getPage(@RequestParam(defaultValue = "0") long after,
+			@RequestParam(defaultValue = "" + DEFAULT_PAGE_SIZE) int limit) {
 
-		return repository.findAll().stream()
+		int size = Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+		List<Quote> quotes = repository.findByIdGreaterThanOrderByIdAsc(after, PageRequest.of(0, size));
+		ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+		if (quotes.size() == size) {
+			String next = ServletUriComponentsBuilder.fromCurrentRequest()
+				.replaceQueryParam("after", quotes.get(quotes.size() - 1).getId())
+				.replaceQueryParam("limit", size)
+				.toUriString();
+			response.header(HttpHeaders.LINK, "<" + next + ">; rel=\"next\"");
+		}
+		return response.body(quotes.stream()
 			.map(quote -> new QuoteResource(quote, "success"))
-			.collect(Collectors.toList());
+			.collect(Collectors.toList()));
 	}
 
 	@GetMapping("/api/{id}")
-	public QuoteResource getOne(@PathVariable Long id) {
+	public ResponseEntity<?> getOne(@PathVariable Long id) {
 
-		return repository.findById(id)
-			.map(quote -> new QuoteResource(quote, "success"))
-			.orElse(new QuoteResource(NONE, "Quote " + id + " does not exist"));
+		Optional<JsonBody> cached = cache.get(id);
+		if (cached.isPresent()) {
+			return cached.get().toResponse();
+		}
+		return ResponseEntity.ok(new QuoteResource(NONE, "Quote " + id + " does not exist"));
 	}
 
 	@GetMapping("/api/random")
 	public QuoteResource getRandomOne() {
-		return getOne(nextLong(1, repository.count() + 1));
+
+		return snapshot.random()
+			.map(quote -> new QuoteResource(quote, "success"))
+			.orElse(new QuoteResource(NONE, "No quotes available"));
+	}
+
+	/**
+	 * Bulk imports newline delimited JSON quotes, see {@link QuoteImporter#importNdjson(InputStream)}.
+	 */
+	@PostMapping(path = "/api/import", consumes = MediaType.APPLICATION_NDJSON_VALUE)
+	public Map<String, Object> importNdjson(InputStream body) throws IOException {
+
+		return importResult(importer.importNdjson(body), null);
+	}
+
+	/**
+	 * Bulk imports CSV quotes, see {@link QuoteImporter#importCsv(InputStream)}.
+	 */
+	@PostMapping(path = "/api/import", consumes = "text/csv")
+	public Map<String, Object> importCsv(InputStream body) throws IOException {
+
+		return importResult(importer.importCsv(body), null);
+	}
+
+	@ExceptionHandler
+	public ResponseEntity<Map<String, Object>> importFailed(QuoteImportException e) {
+
+		boolean badInput = e.getCause() instanceof IllegalArgumentException
+				|| e.getCause() instanceof JsonProcessingException;
+		return ResponseEntity.status(badInput ? HttpStatus.BAD_REQUEST : HttpStatus.INTERNAL_SERVER_ERROR)
+			.body(importResult(e.getImported(), e.getMessage()));
+	}
+
+	private static Map<String, Object> importResult(long imported, String error) {
+		Map<String, Object> result = new LinkedHashMap<>();
+		result.put("imported", imported);
+		if (error != null) {
+			result.put("error", error);
+		}
+		return result;
 	}
 
-	private long nextLong(long lowerRange, long upperRange) {
-		return (long) (RANDOMIZER.nextDouble() * (upperRange - lowerRange)) + lowerRange;
+	private static boolean acceptsNdjson(String accept) {
+		if (accept == null) {
+			return false;
+		}
+		return MediaType.parseMediaTypes(accept).stream()
+			.anyMatch(type -> !type.isWildcardSubtype() && type.isCompatibleWith(MediaType.APPLICATION_NDJSON));
 	}
 }
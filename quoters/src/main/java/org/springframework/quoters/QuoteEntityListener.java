@@ -0,0 +1,76 @@
+/*
+ * Copyright 2014-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.quoters;
+
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+import javax.persistence.PostPersist;
+import javax.persistence.PostRemove;
+import javax.persistence.PostUpdate;
+
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Turns JPA lifecycle callbacks of {@link Quote} into {@link QuotesChangedEvent}s, so every write path keeps the
+ * in-memory quote snapshot up to date. Instantiated by Hibernate through Spring's bean container.
+ * The quotes written by one transaction are collected and published as a single event once it has committed, so a
+ * bulk insert triggers one round of cache updates per transaction rather than one per row.
+ */
+class QuoteEntityListener {
+
+	private final ApplicationEventPublisher publisher;
+
+	QuoteEntityListener(ApplicationEventPublisher publisher) {
+		this.publisher = publisher;
+	}
+
+	@PostPersist
+	@PostUpdate
+	@PostRemove
+	void quoteChanged(Quote quote) {
+		if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+			publisher.publishEvent(new QuotesChangedEvent(quote.getId()));
+			return;
+		}
+		PendingChanges pending = (PendingChanges) TransactionSynchronizationManager.getResource(this);
+		if (pending == null) {
+			pending = new PendingChanges();
+			TransactionSynchronizationManager.bindResource(this, pending);
+			TransactionSynchronizationManager.registerSynchronization(pending);
+		}
+		pending.quoteIds.add(quote.getId());
+	}
+
+	/**
+	 * The quotes written by the current transaction, published once it has committed.
+	 */
+	private final class PendingChanges implements TransactionSynchronization {
+
+		private final Set<Long> quoteIds = new LinkedHashSet<>();
+
+		@Override
+		public void afterCompletion(int status) {
+			TransactionSynchronizationManager.unbindResourceIfPossible(QuoteEntityListener.this);
+			if (status == STATUS_COMMITTED) {
+				publisher.publishEvent(new QuotesChangedEvent(quoteIds));
+			}
+		}
+	}
+}
@@ -0,0 +1,153 @@
+/*
+ * Copyright 2014-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.quoters;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+import javax.persistence.EntityManager;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Writes all quotes to an output stream while reading them from a database cursor, so memory use does not depend
+ * on the size of the table. Every quote is detached once written, which keeps the persistence context from growing.
+ * While the table is small enough, the JSON array is also kept encoded and rebuilt after each committed write.
+ */
+@Component
+class QuoteExporter {
+
+	private final QuoteRepository repository;
+	private final EntityManager entityManager;
+	private final ObjectMapper objectMapper;
+	private final TransactionTemplate transactionTemplate;
+	private final long maxCachedQuotes;
+	// bumped on every committed write, an array built while a write committed is not kept
+	private final AtomicLong generation = new AtomicLong();
+
+	private volatile JsonBody jsonArray;
+	private volatile boolean tooLargeToCache;
+
+	QuoteExporter(QuoteRepository repository, EntityManager entityManager, ObjectMapper objectMapper,
+			PlatformTransactionManager transactionManager,
+			@Value("${quoters.cache.max-list-entries:10000}") long maxCachedQuotes) {
+		this.repository = repository;
+		this.maxCachedQuotes = maxCachedQuotes;
+		this.entityManager = entityManager;
+		this.objectMapper = objectMapper;
+		this.transactionTemplate = new TransactionTemplate(transactionManager);
+		this.transactionTemplate.setReadOnly(true);
+	}
+
+	/**
+	 * @return all quotes as an encoded JSON array, or empty if there are too many quotes to hold them in memory and
+	 * the array has to be streamed
+	 */
+	Optional<JsonBody> cachedJsonArray() throws IOException {
+		JsonBody cached = jsonArray;
+		if (cached != null || tooLargeToCache) {
+			return Optional.ofNullable(cached);
+		}
+		long builtAt = generation.get();
+		if (repository.count() > maxCachedQuotes) {
+			tooLargeToCache = true;
+			return Optional.empty();
+		}
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		writeJsonArray(out);
+		JsonBody built = JsonBody.of(out.toByteArray());
+		jsonArray = built;
+		if (generation.get() != builtAt) {
+			jsonArray = null;
+		}
+		return Optional.of(built);
+	}
+
+	/**
+	 * Drops the encoded array once a write has committed, the next request rebuilds it.
+	 */
+	@EventListener
+	void quotesChanged(QuotesChangedEvent event) {
+		generation.incrementAndGet();
+		jsonArray = null;
+		tooLargeToCache = false;
+	}
+
+	/**
+	 * Writes all quotes as a single JSON array, the same document {@code /api} has always returned.
+	 */
+	void writeJsonArray(OutputStream out) throws IOException {
+		try (JsonGenerator generator = objectMapper.getFactory().createGenerator(out, JsonEncoding.UTF8)
+			.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET)) {
+			generator.writeStartArray();
+			forEach(quote -> generator.writeObject(new QuoteResource(quote, "success")));
+			generator.writeEndArray();
+		}
+	}
+
+	/**
+	 * Writes all quotes as newline delimited JSON, one quote per line.
+	 */
+	void writeNdjson(OutputStream out) throws IOException {
+		forEach(quote -> {
+			out.write(objectMapper.writeValueAsBytes(new QuoteResource(quote, "success")));
+			out.write('\n');
+		});
+		out.flush();
+	}
+
+	private void forEach(QuoteWriter writer) throws IOException {
+		try {
+			transactionTemplate.executeWithoutResult(status -> {
+				try (Stream<Quote> quotes = repository.streamAllByOrderByIdAsc()) {
+					quotes.forEach(quote -> {
+						try {
+							writer.write(quote);
+						}
+						catch (IOException e) {
+							throw new UncheckedIOException(e);
+						}
+						entityManager.detach(quote);
+					});
+				}
+			});
+		}
+		catch (UncheckedIOException e) {
+			// usually the client went away, stop reading and let the caller deal with it
+			throw e.getCause();
+		}
+	}
+
+	@FunctionalInterface
+	private interface QuoteWriter {
+
+		void write(Quote quote) throws IOException;
+	}
+}
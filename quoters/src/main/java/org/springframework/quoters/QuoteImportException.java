@@ -0,0 +1,38 @@
+/*
+ * Copyright 2014-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.quoters;
+
+/**
+ * Thrown when a quote file cannot be imported completely. The quotes of the chunks committed before the failure
+ * stay imported.
+ */
+class QuoteImportException extends RuntimeException {
+
+	private final long imported;
+
+	QuoteImportException(String message, long imported, Throwable cause) {
+		super(message, cause);
+		this.imported = imported;
+	}
+
+	/**
+	 * @return the number of quotes committed before the failure
+	 */
+	long getImported() {
+		return imported;
+	}
+}
@@ -0,0 +1,194 @@
+/*
+ * Copyright 2014-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.quoters;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+
+import javax.persistence.EntityManager;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Streams quote files into the database. Quotes are inserted in chunks, each in its own transaction, so neither the
+ * persistence context nor an open transaction grows with the size of the file. Ids come from a pooled sequence and
+ * inserts are sent as JDBC batches. A failure leaves the chunks already committed in place.
+ */
+@Component
+class QuoteImporter {
+
+	private final EntityManager entityManager;
+	private final QuoteSnapshot snapshot;
+	private final ObjectMapper objectMapper;
+	private final TransactionTemplate transactionTemplate;
+	private final int chunkSize;
+
+	QuoteImporter(EntityManager entityManager, QuoteSnapshot snapshot, ObjectMapper objectMapper,
+			PlatformTransactionManager transactionManager, @Value("${quoters.import.chunk-size:1000}") int chunkSize) {
+		this.entityManager = entityManager;
+		this.snapshot = snapshot;
+		this.objectMapper = objectMapper;
+		this.transactionTemplate = new TransactionTemplate(transactionManager);
+		this.chunkSize = chunkSize;
+	}
+
+	/**
+	 * Imports newline delimited JSON objects, each either a quote ({@code {"quote": "..."}}) or a quote resource as
+	 * exported by {@code /api} ({@code {"value": {"quote": "..."}}}). Blank quotes are rejected.
+	 *
+	 * @return the number of quotes imported
+	 */
+	long importNdjson(InputStream in) throws IOException {
+		return importAll(() -> {
+			MappingIterator<JsonNode> lines = objectMapper.readerFor(JsonNode.class).readValues(in);
+			return new QuoteSource() {
+
+				private long line;
+
+				@Override
+				public String next() throws IOException {
+					if (!lines.hasNextValue()) {
+						return null;
+					}
+					line++;
+					JsonNode node = lines.nextValue();
+					JsonNode quote = node.has("value") ? node.path("value").path("quote") : node.path("quote");
+					if (!quote.isTextual() || isBlank(quote.asText())) {
+						throw new IllegalArgumentException("Record " + line + " has no quote text");
+					}
+					return quote.asText();
+				}
+
+				@Override
+				public void close() throws IOException {
+					lines.close();
+				}
+			};
+		});
+	}
+
+	/**
+	 * Imports CSV records whose first column is the quote text. A header record {@code quote} is skipped and blank
+	 * quotes are rejected.
+	 *
+	 * @return the number of quotes imported
+	 */
+	long importCsv(InputStream in) throws IOException {
+		return importAll(() -> {
+			Reader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+			CsvQuoteReader records = new CsvQuoteReader(reader);
+			return new QuoteSource() {
+
+				@Override
+				public String next() throws IOException {
+					String quote = records.next();
+					if (records.recordNumber() == 1 && "quote".equalsIgnoreCase(quote)) {
+						quote = records.next();
+					}
+					if (quote != null && isBlank(quote)) {
+						throw new IllegalArgumentException("Record " + records.recordNumber() + " has no quote text");
+					}
+					return quote;
+				}
+
+				@Override
+				public void close() throws IOException {
+					reader.close();
+				}
+			};
+		});
+	}
+
+	/**
+	 * Opens the source inside the error handling, so input that is malformed from its first byte is reported like
+	 * any later record.
+	 */
+	private long importAll(QuoteSourceOpener opener) throws IOException {
+		long imported = 0;
+		String[] chunk = new String[chunkSize];
+		// the random quote snapshot is reloaded once at the end rather than after every chunk
+		try (QuoteSnapshot.Deferral deferral = snapshot.deferRefreshes(); QuoteSource source = opener.open()) {
+			int size = 0;
+			String quote;
+			while ((quote = source.next()) != null) {
+				chunk[size++] = quote;
+				if (size == chunkSize) {
+					insert(chunk, size);
+					imported += size;
+					size = 0;
+				}
+			}
+			if (size > 0) {
+				insert(chunk, size);
+				imported += size;
+			}
+			return imported;
+		}
+		catch (JsonProcessingException e) {
+			throw new QuoteImportException("Malformed JSON: " + e.getOriginalMessage(), imported, e);
+		}
+		catch (RuntimeException e) {
+			throw new QuoteImportException(e.getMessage(), imported, e);
+		}
+	}
+
+	/**
+	 * Inserts one chunk in its own transaction. The file is read outside of it, so a slow upload does not hold a
+	 * connection.
+	 */
+	private void insert(String[] chunk, int size) {
+		transactionTemplate.executeWithoutResult(status -> {
+			for (int i = 0; i < size; i++) {
+				entityManager.persist(new Quote(chunk[i]));
+			}
+			// the request's persistence context may outlive the transaction, keep it from filling up
+			entityManager.flush();
+			entityManager.clear();
+		});
+	}
+
+	private static boolean isBlank(String quote) {
+		return quote.trim().isEmpty();
+	}
+
+	private interface QuoteSource extends Closeable {
+
+		/**
+		 * @return the next quote text, or null at the end of the input
+		 */
+		String next() throws IOException;
+	}
+
+	@FunctionalInterface
+	private interface QuoteSourceOpener {
+
+		QuoteSource open() throws IOException;
+	}
+}
@@ -16,8 +16,31 @@
 
 package org.springframework.quoters;
 
+import java.util.List;
+import java.util.stream.Stream;
+
+import javax.persistence.QueryHint;
+
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 
 public interface QuoteRepository extends JpaRepository<Quote, Long> {
 
+	/**
+	 * Keyset page: the quotes following {@code after} in id order. Unlike an offset, the cost does not grow with
+	 * the position of the page.
+	 */
+	List<Quote> findByIdGreaterThanOrderByIdAsc(Long after, Pageable pageable);
+
+	/**
+	 * All quotes in id order, read through a cursor in batches of the fetch size. Must be consumed and closed
+	 * inside a transaction.
+	 */
+	@Query("select q from Quote q order by q.id")
+	@QueryHints({
+		@QueryHint(name = org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE, value = "500"),
+		@QueryHint(name = org.hibernate.jpa.QueryHints.HINT_READONLY, value = "true") })
+	Stream<Quote> streamAllByOrderByIdAsc();
 }
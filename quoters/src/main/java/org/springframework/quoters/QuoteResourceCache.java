@@ -0,0 +1,104 @@
+/*
+ * Copyright 2014-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.quoters;
+
+import java.io.UncheckedIOException;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+/**
+ * Read-through cache of the {@link QuoteResource} served for each quote id, held as its encoded JSON body, so hot
+ * ids neither query the database nor run Jackson again. Bounded by Caffeine's size-based eviction, which keeps the
+ * frequently read ids. An entry is evicted once a write to its quote has committed. Hits, misses and evictions are
+ * published as {@code cache.*} metrics tagged {@code cache=quotes}.
+ */
+@Component
+class QuoteResourceCache implements MeterBinder {
+
+	private final QuoteRepository repository;
+	private final ObjectMapper objectMapper;
+	private final Cache<Long, JsonBody> resources;
+	// bumped on every committed write, a load that overlapped a write does not keep its result
+	private final AtomicLong generation = new AtomicLong();
+
+	QuoteResourceCache(QuoteRepository repository, ObjectMapper objectMapper,
+			@Value("${quoters.cache.max-entries:10000}") int maxEntries) {
+		this.repository = repository;
+		this.objectMapper = objectMapper;
+		this.resources = Caffeine.newBuilder().maximumSize(maxEntries).recordStats().build();
+	}
+
+	/**
+	 * @return the encoded resource of the given quote, loaded from the repository on a miss, or empty if there is no
+	 * such quote
+	 */
+	Optional<JsonBody> get(Long id) {
+		JsonBody cached = resources.getIfPresent(id);
+		if (cached != null) {
+			return Optional.of(cached);
+		}
+		long loadedAt = generation.get();
+		Optional<JsonBody> loaded = repository.findById(id).map(quote -> encode(new QuoteResource(quote, "success")));
+		loaded.ifPresent(resource -> {
+			resources.put(id, resource);
+			// a write committed while loading, the value may predate it
+			if (generation.get() != loadedAt) {
+				resources.asMap().remove(id, resource);
+			}
+		});
+		return loaded;
+	}
+
+	/**
+	 * Evicts the quotes once the transaction writing them has committed.
+	 */
+	@EventListener
+	void quotesChanged(QuotesChangedEvent event) {
+		generation.incrementAndGet();
+		for (Long id : event.getQuoteIds()) {
+			if (id != null) {
+				resources.invalidate(id);
+			}
+		}
+	}
+
+	@Override
+	public void bindTo(MeterRegistry registry) {
+		CaffeineCacheMetrics.monitor(registry, resources, "quotes");
+	}
+
+	private JsonBody encode(QuoteResource resource) {
+		try {
+			return JsonBody.of(objectMapper.writeValueAsBytes(resource));
+		}
+		catch (JsonProcessingException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+}
@@ -0,0 +1,147 @@
+/*
+ * Copyright 2014-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.quoters;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.stereotype.Component;
+
+/**
+ * Copy-on-write array of all quotes, used to serve random quotes without touching the database.
+ * Readers only do a volatile read and an array access, writes to the table replace the whole array once their
+ * transaction has committed.
+ */
+@Component
+class QuoteSnapshot {
+
+	private static final Logger log = LoggerFactory.getLogger(QuoteSnapshot.class);
+
+	private final QuoteRepository repository;
+	private final TaskExecutor executor;
+	private final AtomicBoolean refreshQueued = new AtomicBoolean();
+	private final AtomicBoolean refreshing = new AtomicBoolean();
+	private final AtomicInteger deferrals = new AtomicInteger();
+
+	private volatile Quote[] quotes = new Quote[0];
+
+	QuoteSnapshot(QuoteRepository repository, TaskExecutor executor) {
+		this.repository = repository;
+		this.executor = executor;
+	}
+
+	/**
+	 * @return a uniformly chosen quote, or empty if there are no quotes
+	 */
+	Optional<Quote> random() {
+		Quote[] current = quotes;
+		if (current.length == 0) {
+			return Optional.empty();
+		}
+		return Optional.of(current[ThreadLocalRandom.current().nextInt(current.length)]);
+	}
+
+	/**
+	 * @return the number of quotes in the snapshot
+	 */
+	int size() {
+		return quotes.length;
+	}
+
+	/**
+	 * Reloads all quotes and swaps them in.
+	 */
+	void refresh() {
+		List<Quote> all = repository.findAll();
+		quotes = all.toArray(new Quote[0]);
+		log.debug("Quote snapshot refreshed with {} quotes", quotes.length);
+	}
+
+	@EventListener(ApplicationReadyEvent.class)
+	void initialize() {
+		refresh();
+	}
+
+	/**
+	 * Holds back reloads until the returned deferral is closed, then reloads once if anything changed meanwhile.
+	 * Used by bulk writes, which would otherwise keep reloading a growing table after every chunk.
+	 */
+	Deferral deferRefreshes() {
+		deferrals.incrementAndGet();
+		AtomicBoolean closed = new AtomicBoolean();
+		return () -> {
+			if (closed.compareAndSet(false, true) && deferrals.decrementAndGet() == 0 && refreshQueued.get()) {
+				scheduleRefresh();
+			}
+		};
+	}
+
+	/**
+	 * Schedules a reload after a write has committed, each transaction publishes a single event. Transactions
+	 * committing while a reload is queued are folded into it.
+	 */
+	@EventListener
+	void quotesChanged(QuotesChangedEvent event) {
+		refreshQueued.set(true);
+		if (deferrals.get() == 0) {
+			scheduleRefresh();
+		}
+	}
+
+	/**
+	 * Runs queued reloads one after the other, a reload never overlaps another one.
+	 */
+	private void scheduleRefresh() {
+		if (refreshing.compareAndSet(false, true)) {
+			executor.execute(() -> {
+				try {
+					while (deferrals.get() == 0 && refreshQueued.getAndSet(false)) {
+						refresh();
+					}
+				}
+				catch (RuntimeException e) {
+					log.error("Failed to refresh the quote snapshot", e);
+				}
+				finally {
+					refreshing.set(false);
+				}
+				// a write may have committed after the last check
+				if (deferrals.get() == 0 && refreshQueued.get()) {
+					scheduleRefresh();
+				}
+			});
+		}
+	}
+
+	/**
+	 * Ends a deferral started by {@link #deferRefreshes()}.
+	 */
+	@FunctionalInterface
+	interface Deferral extends AutoCloseable {
+
+		@Override
+		void close();
+	}
+}
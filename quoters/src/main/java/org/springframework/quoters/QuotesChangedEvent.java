@@ -0,0 +1,49 @@
+/*
+ * Copyright 2014-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.quoters;
+
+import java.util.Collection;
+import java.util.Collections;
+
+/**
+ * Published once a transaction that inserted, updated or deleted quotes has committed, or right away for a write
+ * outside of a transaction.
+ */
+class QuotesChangedEvent {
+
+	private final Collection<Long> quoteIds;
+
+	QuotesChangedEvent(Collection<Long> quoteIds) {
+		this.quoteIds = Collections.unmodifiableCollection(quoteIds);
+	}
+
+	QuotesChangedEvent(Long quoteId) {
+		this(Collections.singleton(quoteId));
+	}
+
+	/**
+	 * @return the ids of the quotes written
+	 */
+	public Collection<Long> getQuoteIds() {
+		return quoteIds;
+	}
+
+	@Override
+	public String toString() {
+		return "QuotesChangedEvent{" + "quoteIds=" + quoteIds + '}';
+	}
+}
@@ -0,0 +1,87 @@
+/*
+ * Copyright 2014-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.quoters;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+
+class CsvQuoteReaderTest {
+
+	@Test
+	void readsTheFirstFieldOfEveryRecord() throws IOException {
+		List<String> quotes = readAll("quote,author\r\nplain,Someone\n\"with, comma\",Else\n");
+
+		assertThat(quotes).containsExactly("quote", "plain", "with, comma");
+	}
+
+	@Test
+	void quotedFieldsKeepLineBreaksAndDoubledQuotes() throws IOException {
+		List<String> quotes = readAll("\"first line\nsecond \"\"quoted\"\" line\",author\nnext");
+
+		assertThat(quotes).containsExactly("first line\nsecond \"quoted\" line", "next");
+	}
+
+	@Test
+	void quotedFieldsInSkippedColumnsDoNotEndTheRecord() throws IOException {
+		List<String> quotes = readAll("one,\"skipped\nacross lines\"\ntwo");
+
+		assertThat(quotes).containsExactly("one", "two");
+	}
+
+	@Test
+	void blankLinesAreIgnoredAndRecordsCounted() throws IOException {
+		CsvQuoteReader reader = new CsvQuoteReader(new StringReader("\n\none\r\n\r\ntwo\n\n"));
+
+		assertThat(reader.next()).isEqualTo("one");
+		assertThat(reader.recordNumber()).isEqualTo(1);
+		assertThat(reader.next()).isEqualTo("two");
+		assertThat(reader.recordNumber()).isEqualTo(2);
+		assertThat(reader.next()).isNull();
+	}
+
+	@Test
+	void emptyFirstFieldIsReturnedAsIs() throws IOException {
+		assertThat(readAll(",author\n\"\",author")).containsExactly("", "");
+	}
+
+	@Test
+	void unterminatedQuotedFieldIsRejected() {
+		CsvQuoteReader reader = new CsvQuoteReader(new StringReader("ok\n\"never closed,author\n"));
+
+		assertThatIllegalArgumentException().isThrownBy(() -> {
+			reader.next();
+			reader.next();
+		}).withMessage("Record 2 has an unterminated quoted field");
+	}
+
+	private static List<String> readAll(String csv) throws IOException {
+		CsvQuoteReader reader = new CsvQuoteReader(new StringReader(csv));
+		List<String> quotes = new ArrayList<>();
+		String quote;
+		while ((quote = reader.next()) != null) {
+			quotes.add(quote);
+		}
+		return quotes;
+	}
+}
@@ -0,0 +1,130 @@
+/*
+ * Copyright 2014-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.quoters;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.Test;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class QuoteControllerTest {
+
+	@Autowired
+	private QuoteRepository repository;
+
+	@Autowired
+	private MockMvc mvc;
+
+	@Test
+	void pageAfterTheLastIdIsEmptyWithoutLink() throws Exception {
+		long last = lastId();
+
+		mvc.perform(get("/api").param("after", String.valueOf(last)))
+			.andExpect(status().isOk())
+			.andExpect(jsonPath("$.length()").value(0))
+			.andExpect(header().doesNotExist(HttpHeaders.LINK));
+	}
+
+	@Test
+	void fullPageLinksToTheNextOneAndTheLastPageHasNoLink() throws Exception {
+		long before = lastId();
+		List<Long> ids = save(3);
+
+		mvc.perform(get("/api").param("after", String.valueOf(before)).param("limit", "2"))
+			.andExpect(status().isOk())
+			.andExpect(jsonPath("$.length()").value(2))
+			.andExpect(jsonPath("$[1].value.id").value(ids.get(1).intValue()))
+			.andExpect(header().string(HttpHeaders.LINK,
+					"<http://localhost/api?after=" + ids.get(1) + "&limit=2>; rel=\"next\""));
+
+		mvc.perform(get("/api").param("after", String.valueOf(ids.get(1))).param("limit", "2"))
+			.andExpect(status().isOk())
+			.andExpect(jsonPath("$.length()").value(1))
+			.andExpect(jsonPath("$[0].value.id").value(ids.get(2).intValue()))
+			.andExpect(header().doesNotExist(HttpHeaders.LINK));
+	}
+
+	@Test
+	void limitDefaultsToOneHundredAndIsCappedAtOneThousand() throws Exception {
+		long before = lastId();
+		List<Long> ids = save(1001);
+
+		mvc.perform(get("/api").param("after", String.valueOf(before)))
+			.andExpect(jsonPath("$.length()").value(100))
+			.andExpect(header().string(HttpHeaders.LINK,
+					"<http://localhost/api?after=" + ids.get(99) + "&limit=100>; rel=\"next\""));
+
+		mvc.perform(get("/api").param("after", String.valueOf(before)).param("limit", "5000"))
+			.andExpect(jsonPath("$.length()").value(1000))
+			.andExpect(header().string(HttpHeaders.LINK,
+					"<http://localhost/api?after=" + ids.get(999) + "&limit=1000>; rel=\"next\""));
+
+		mvc.perform(get("/api").param("after", String.valueOf(before)).param("limit", "0"))
+			.andExpect(jsonPath("$.length()").value(1));
+	}
+
+	@Test
+	void ndjsonStreamsOneQuotePerLine() throws Exception {
+		long count = repository.count();
+
+		MvcResult started = mvc.perform(get("/api").accept(MediaType.APPLICATION_NDJSON))
+			.andExpect(request().asyncStarted())
+			.andReturn();
+		String body = mvc.perform(asyncDispatch(started))
+			.andExpect(status().isOk())
+			.andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_NDJSON))
+			.andReturn()
+			.getResponse()
+			.getContentAsString();
+
+		String[] lines = body.split("\n");
+		assertThat(lines).hasSize((int) count);
+		assertThat(lines).allSatisfy(line -> assertThat(line).startsWith("{").contains("\"type\":\"success\""));
+	}
+
+	private long lastId() {
+		return repository.findAll().stream().mapToLong(Quote::getId).max().orElse(0);
+	}
+
+	private List<Long> save(int count) {
+		List<Quote> quotes = new ArrayList<>();
+		for (int i = 0; i < count; i++) {
+			quotes.add(new Quote("quote " + i));
+		}
+		return repository.saveAll(quotes).stream().map(Quote::getId).sorted().collect(Collectors.toList());
+	}
+}
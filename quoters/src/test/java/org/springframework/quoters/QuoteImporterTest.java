@@ -0,0 +1,113 @@
+/*
+ * Copyright 2014-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.quoters;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import org.junit.jupiter.api.Test;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowableOfType;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = "quoters.import.chunk-size=2")
+@AutoConfigureMockMvc
+class QuoteImporterTest {
+
+	@Autowired
+	private QuoteImporter importer;
+
+	@Autowired
+	private QuoteRepository repository;
+
+	@Autowired
+	private MockMvc mvc;
+
+	@Test
+	void importsFullAndPartialChunks() throws Exception {
+		long before = repository.count();
+
+		assertThat(importer.importCsv(input("quote\none\ntwo\n"))).isEqualTo(2);
+		assertThat(importer.importCsv(input("three\nfour\nfive\n"))).isEqualTo(3);
+		assertThat(importer.importNdjson(input("{\"quote\":\"six\"}\n{\"value\":{\"quote\":\"seven\"}}\n"))).isEqualTo(2);
+
+		assertThat(repository.count()).isEqualTo(before + 7);
+	}
+
+	@Test
+	void failureKeepsTheChunksCommittedBefore() throws Exception {
+		long before = repository.count();
+
+		QuoteImportException e = catchThrowableOfType(
+				() -> importer.importNdjson(input("{\"quote\":\"a\"}\n{\"quote\":\"b\"}\n{\"quote\":\"c\"}\n{\"quote\":")),
+				QuoteImportException.class);
+
+		assertThat(e.getCause()).isInstanceOf(JsonProcessingException.class);
+		assertThat(e.getImported()).isEqualTo(2);
+		assertThat(repository.count()).isEqualTo(before + 2);
+	}
+
+	@Test
+	void blankCsvQuotesAreRejected() throws Exception {
+		long before = repository.count();
+
+		QuoteImportException e = catchThrowableOfType(() -> importer.importCsv(input("quote\none\n  ,author\ntwo\n")),
+				QuoteImportException.class);
+
+		assertThat(e.getCause()).isInstanceOf(IllegalArgumentException.class);
+		assertThat(e.getMessage()).isEqualTo("Record 3 has no quote text");
+		assertThat(e.getImported()).isZero();
+		assertThat(repository.count()).isEqualTo(before);
+	}
+
+	@Test
+	void blankJsonQuotesAreRejected() {
+		QuoteImportException e = catchThrowableOfType(() -> importer.importNdjson(input("{\"quote\":\" \"}\n")),
+				QuoteImportException.class);
+
+		assertThat(e.getMessage()).isEqualTo("Record 1 has no quote text");
+	}
+
+	@Test
+	void malformedFirstLineIsABadRequest() throws Exception {
+		mvc.perform(post("/api/import").contentType(MediaType.APPLICATION_NDJSON).content("not json\n"))
+			.andExpect(status().isBadRequest())
+			.andExpect(jsonPath("$.imported").value(0));
+	}
+
+	@Test
+	void malformedCsvIsABadRequest() throws Exception {
+		mvc.perform(post("/api/import").contentType("text/csv").content("one\n\"never closed\n"))
+			.andExpect(status().isBadRequest())
+			.andExpect(jsonPath("$.imported").value(0));
+	}
+
+	private static InputStream input(String content) {
+		return new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+	}
+}
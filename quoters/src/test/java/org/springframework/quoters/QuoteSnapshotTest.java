@@ -0,0 +1,83 @@
+/*
+ * Copyright 2014-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.quoters;
+
+import java.util.Arrays;
+
+import org.junit.jupiter.api.Test;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.event.ApplicationEvents;
+import org.springframework.test.context.event.RecordApplicationEvents;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@RecordApplicationEvents
+class QuoteSnapshotTest {
+
+	@Autowired
+	private QuoteSnapshot snapshot;
+
+	@Autowired
+	private QuoteRepository repository;
+
+	@Autowired
+	private PlatformTransactionManager transactionManager;
+
+	@Autowired
+	private ApplicationEvents events;
+
+	@Test
+	void reflectsCommittedWritesWithOneEventPerTransaction() throws InterruptedException {
+		long before = repository.count();
+
+		new TransactionTemplate(transactionManager).executeWithoutResult(status -> repository
+			.saveAll(Arrays.asList(new Quote("one"), new Quote("two"), new Quote("three"))));
+
+		assertThat(events.stream(QuotesChangedEvent.class)).singleElement()
+			.satisfies(event -> assertThat(event.getQuoteIds()).hasSize(3));
+		awaitSnapshotSize(before + 3);
+	}
+
+	@Test
+	void ignoresRolledBackWrites() throws InterruptedException {
+		long before = repository.count();
+		awaitSnapshotSize(before);
+
+		new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+			repository.saveAndFlush(new Quote("rolled back"));
+			status.setRollbackOnly();
+		});
+
+		assertThat(events.stream(QuotesChangedEvent.class)).isEmpty();
+		assertThat(repository.count()).isEqualTo(before);
+		assertThat(snapshot.size()).isEqualTo(before);
+	}
+
+	private void awaitSnapshotSize(long expected) throws InterruptedException {
+		// the snapshot is reloaded asynchronously after the commit
+		long deadline = System.nanoTime() + 5_000_000_000L;
+		while (snapshot.size() != expected && System.nanoTime() < deadline) {
+			Thread.sleep(10);
+		}
+		assertThat(snapshot.size()).isEqualTo(expected);
+	}
+}